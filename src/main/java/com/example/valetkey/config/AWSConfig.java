@@ -7,9 +7,12 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.cloudwatch.CloudWatchClient;
 
@@ -26,49 +29,50 @@ public class AWSConfig {
     private String secretKey;
 
     @Bean
-    public S3Client s3Client() {
+    public Region awsRegion() {
+        return Region.of(region);
+    }
+
+    // Static keys when configured, otherwise the default provider chain (environment, IAM role, etc.)
+    @Bean
+    public AwsCredentialsProvider awsCredentialsProvider() {
         if (accessKey != null && !accessKey.isEmpty() && secretKey != null && !secretKey.isEmpty()) {
-            AwsBasicCredentials awsCreds = AwsBasicCredentials.create(accessKey, secretKey);
-            return S3Client.builder()
-                    .region(Region.of(region))
-                    .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
-                    .build();
-        } else {
-            // Use default credentials provider (from environment, IAM role, etc.)
-            return S3Client.builder()
-                    .region(Region.of(region))
-                    .build();
+            return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
         }
+        return DefaultCredentialsProvider.create();
+    }
+
+    @Bean
+    public S3Client s3Client() {
+        return S3Client.builder()
+                .region(awsRegion())
+                .credentialsProvider(awsCredentialsProvider())
+                .build();
+    }
+
+    // Shared presigner: building one per request re-resolves credentials and region every call
+    @Bean
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .region(awsRegion())
+                .credentialsProvider(awsCredentialsProvider())
+                .build();
     }
 
     @Bean
     public SqsClient sqsClient() {
-        if (accessKey != null && !accessKey.isEmpty() && secretKey != null && !secretKey.isEmpty()) {
-            AwsBasicCredentials awsCreds = AwsBasicCredentials.create(accessKey, secretKey);
-            return SqsClient.builder()
-                    .region(Region.of(region))
-                    .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
-                    .build();
-        } else {
-            return SqsClient.builder()
-                    .region(Region.of(region))
-                    .build();
-        }
+        return SqsClient.builder()
+                .region(awsRegion())
+                .credentialsProvider(awsCredentialsProvider())
+                .build();
     }
 
     @Bean
     public CloudWatchClient cloudWatchClient() {
-        if (accessKey != null && !accessKey.isEmpty() && secretKey != null && !secretKey.isEmpty()) {
-            AwsBasicCredentials awsCreds = AwsBasicCredentials.create(accessKey, secretKey);
-            return CloudWatchClient.builder()
-                    .region(Region.of(region))
-                    .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
-                    .build();
-        } else {
-            return CloudWatchClient.builder()
-                    .region(Region.of(region))
-                    .build();
-        }
+        return CloudWatchClient.builder()
+                .region(awsRegion())
+                .credentialsProvider(awsCredentialsProvider())
+                .build();
     }
 
     @Bean
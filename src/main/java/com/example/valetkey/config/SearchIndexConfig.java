@@ -0,0 +1,49 @@
+package com.example.valetkey.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Dialect-specific search indexes that ddl-auto cannot express. On PostgreSQL a pg_trgm GIN
+ * index lets substring (LIKE '%q%') name searches use an index; on MySQL the composite
+ * (owner_id, normalized_name) index declared on the entity serves prefix matches and keeps
+ * substring matches to a scan of one user's rows.
+ */
+@Configuration
+public class SearchIndexConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexConfig.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${search.trigram-index.enabled:true}")
+    private boolean trigramIndexEnabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSearchIndexes() {
+        if (!trigramIndexEnabled) {
+            return;
+        }
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_folders_normalized_name_trgm " +
+                "ON folders USING gin (normalized_name gin_trgm_ops)");
+            log.info("Trigram search indexes are in place");
+        } catch (Exception e) {
+            // Usually missing privileges for CREATE EXTENSION; search still works, just without the index
+            log.warn("Could not create trigram search indexes: {}", e.getMessage());
+        }
+    }
+}
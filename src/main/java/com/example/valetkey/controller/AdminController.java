@@ -2,6 +2,7 @@ package com.example.valetkey.controller;
 
 import com.example.valetkey.model.User;
 import com.example.valetkey.repository.UserRepository;
+import com.example.valetkey.service.UserContext;
 import com.example.valetkey.service.UserService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +22,9 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserContext userContext;
+
     @PostMapping("/permission/{id}")
     public ResponseEntity<?> updateUserPermission(
             @PathVariable Long id,
@@ -39,7 +43,9 @@ public class AdminController {
         user.setRead(permission.get("read"));
         user.setWrite(permission.get("write"));
 
-        return ResponseEntity.ok(userRepository.save(user));
+        User saved = userRepository.save(user);
+        userContext.evict(id);
+        return ResponseEntity.ok(saved);
     }
     @GetMapping("/user-list")
     public ResponseEntity<?> getUserList(HttpSession session) {
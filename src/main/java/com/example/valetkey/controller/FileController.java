@@ -1,18 +1,26 @@
 package com.example.valetkey.controller;
 
+import com.example.valetkey.model.BulkDownloadJob;
+import com.example.valetkey.model.FileSummary;
 import com.example.valetkey.model.Resource;
 import com.example.valetkey.model.User;
 import com.example.valetkey.repository.ResourceRepository;
-import com.example.valetkey.repository.UserRepository;
+import com.example.valetkey.service.BulkDownloadJobService;
 import com.example.valetkey.service.FileService;
+import com.example.valetkey.service.UploadSessionService;
+import com.example.valetkey.service.UserContext;
 import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -30,11 +38,17 @@ public class FileController {
     private FileService fileService;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserContext userContext;
 
     @Autowired
     private ResourceRepository resourceRepository;
 
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private BulkDownloadJobService bulkDownloadJobService;
+
     @Autowired
     private com.example.valetkey.service.CloudWatchMetricsService cloudWatchMetricsService;
 
@@ -67,7 +81,7 @@ public class FileController {
                 );
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             
             return fileService.generateUploadUrlAsync(fileName, fileSize, folderId, user)
                 .thenApply(uploadInfo -> ResponseEntity.ok(uploadInfo))
@@ -86,6 +100,215 @@ public class FileController {
         }
     }
 
+    @PostMapping("/upload-urls")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> generateUploadUrls(
+            @RequestBody Map<String, Object> request,
+            HttpSession session) {
+
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .<Map<String, Object>>body(Map.of("message", "Not authenticated"))
+                );
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> files = (List<Map<String, Object>>) request.get("files");
+            Long folderId = request.get("folderId") != null
+                ? Long.valueOf(request.get("folderId").toString())
+                : null;
+
+            if (files == null || files.isEmpty()) {
+                return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest()
+                        .<Map<String, Object>>body(Map.of("message", "files is required"))
+                );
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+
+            return fileService.generateUploadUrlsAsync(files, folderId, user)
+                .thenApply(uploadInfo -> ResponseEntity.ok(uploadInfo))
+                .exceptionally(ex -> {
+                    log.error("Error generating batch upload URLs", ex);
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .<Map<String, Object>>body(Map.of("message", "Failed to generate upload URLs: " + ex.getMessage()));
+                });
+
+        } catch (Exception e) {
+            log.error("Error generating batch upload URLs", e);
+            return CompletableFuture.completedFuture(
+                ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .<Map<String, Object>>body(Map.of("message", "Failed to generate upload URLs: " + e.getMessage()))
+            );
+        }
+    }
+
+    @PostMapping("/multipart/initiate")
+    public ResponseEntity<?> initiateMultipartUpload(
+            @RequestBody Map<String, Object> request,
+            HttpSession session) {
+
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            String fileName = (String) request.get("fileName");
+            Long fileSize = request.get("fileSize") != null
+                ? Long.valueOf(request.get("fileSize").toString())
+                : null;
+            Long partSize = request.get("partSize") != null
+                ? Long.valueOf(request.get("partSize").toString())
+                : null;
+            Long folderId = request.get("folderId") != null
+                ? Long.valueOf(request.get("folderId").toString())
+                : null;
+            String contentType = (String) request.get("contentType");
+
+            if (fileName == null || fileSize == null) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", "fileName and fileSize are required"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            Map<String, Object> result = fileService.initiateMultipartUpload(
+                fileName, fileSize, partSize, contentType, folderId, user);
+
+            return ResponseEntity.ok(result);
+
+        } catch (Exception e) {
+            log.error("Error initiating multipart upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to initiate multipart upload: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{fileId:\\d+}/multipart/part-urls")
+    public ResponseEntity<?> generateUploadPartUrls(
+            @PathVariable Long fileId,
+            @RequestBody Map<String, Object> request,
+            HttpSession session) {
+
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Object> partNumbersObj = (List<Object>) request.get("partNumbers");
+            if (partNumbersObj == null || partNumbersObj.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", "partNumbers is required"));
+            }
+
+            List<Integer> partNumbers = partNumbersObj.stream()
+                .map(n -> Integer.valueOf(n.toString()))
+                .collect(Collectors.toList());
+
+            User user = userContext.getUser(sessionUser.getId());
+            Map<String, Object> result = fileService.generateUploadPartUrls(fileId, partNumbers, user);
+
+            return ResponseEntity.ok(result);
+
+        } catch (Exception e) {
+            log.error("Error generating part upload URLs", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to generate part upload URLs: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{fileId:\\d+}/multipart/parts")
+    public ResponseEntity<?> recordCompletedParts(
+            @PathVariable Long fileId,
+            @RequestBody Map<String, Object> request,
+            HttpSession session) {
+
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> partsObj = (List<Map<String, Object>>) request.get("parts");
+            if (partsObj == null || partsObj.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", "parts is required"));
+            }
+
+            Map<Integer, String> parts = new HashMap<>();
+            for (Map<String, Object> part : partsObj) {
+                if (part.get("partNumber") == null) {
+                    return ResponseEntity.badRequest()
+                        .body(Map.of("message", "partNumber is required for every part"));
+                }
+                parts.put(Integer.valueOf(part.get("partNumber").toString()), (String) part.get("eTag"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            uploadSessionService.recordCompletedParts(fileId, parts, user);
+
+            return ResponseEntity.ok(uploadSessionService.getProgress(fileId, false, user));
+
+        } catch (Exception e) {
+            log.error("Error recording uploaded parts", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{fileId:\\d+}/multipart/status")
+    public ResponseEntity<?> getMultipartStatus(
+            @PathVariable Long fileId,
+            @RequestParam(value = "reconcile", defaultValue = "false") boolean reconcile,
+            HttpSession session) {
+
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            return ResponseEntity.ok(uploadSessionService.getProgress(fileId, reconcile, user));
+
+        } catch (Exception e) {
+            log.error("Error getting multipart upload status", e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{fileId:\\d+}/multipart/abort")
+    public ResponseEntity<?> abortMultipartUpload(@PathVariable Long fileId, HttpSession session) {
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            fileService.abortMultipartUpload(fileId, user);
+
+            return ResponseEntity.ok(Map.of("message", "Multipart upload aborted"));
+
+        } catch (Exception e) {
+            log.error("Error aborting multipart upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @PostMapping("/upload/confirm")
     public ResponseEntity<?> confirmUpload(
             @RequestBody Map<String, Object> request,
@@ -108,7 +331,7 @@ public class FileController {
                     .body(Map.of("message", "fileId is required"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             Resource resource = fileService.confirmUpload(fileId, contentType, user);
 
             Map<String, Object> response = new HashMap<>();
@@ -124,6 +347,56 @@ public class FileController {
         }
     }
 
+    @PostMapping("/upload/confirm-batch")
+    public ResponseEntity<?> confirmUploads(
+            @RequestBody Map<String, Object> request,
+            HttpSession session) {
+
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> files = (List<Map<String, Object>>) request.get("files");
+            if (files == null || files.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", "files is required"));
+            }
+
+            Map<Long, String> contentTypes = new HashMap<>();
+            for (Map<String, Object> file : files) {
+                if (file.get("fileId") == null) {
+                    return ResponseEntity.badRequest()
+                        .body(Map.of("message", "fileId is required for every file"));
+                }
+                contentTypes.put(Long.valueOf(file.get("fileId").toString()), (String) file.get("contentType"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            Map<String, Object> result = fileService.confirmUploads(contentTypes, user);
+
+            @SuppressWarnings("unchecked")
+            List<Resource> confirmed = (List<Resource>) result.get("confirmed");
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", confirmed.size() + " files uploaded successfully");
+            response.put("files", confirmed.stream()
+                .map(this::fileToMap)
+                .collect(Collectors.toList()));
+            response.put("failed", result.get("failed"));
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("Error confirming batch upload", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", "Failed to confirm uploads: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/{fileId:\\d+}")
     public ResponseEntity<?> getFile(@PathVariable Long fileId, HttpSession session) {
         try {
@@ -133,7 +406,7 @@ public class FileController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             Map<String, Object> metadata = fileService.getFileMetadata(fileId, user);
 
             return ResponseEntity.ok(metadata);
@@ -156,7 +429,7 @@ public class FileController {
             }
 
             log.debug("Download request for file {} by user {}", fileId, sessionUser.getUsername());
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             
             if (user == null) {
                 log.warn("User not found in database: {}", sessionUser.getId());
@@ -200,10 +473,10 @@ public class FileController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             fileService.deleteFile(fileId, user);
 
-            return ResponseEntity.ok(Map.of("message", "File deleted successfully"));
+            return ResponseEntity.ok(Map.of("message", "File moved to trash"));
 
         } catch (Exception e) {
             log.error("Error deleting file", e);
@@ -223,16 +496,12 @@ public class FileController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
-            List<Resource> allFiles = fileService.getAllFiles(user, folderId);
-            List<Long> fileIds = allFiles.stream()
-                .map(Resource::getId)
-                .collect(Collectors.toList());
+            User user = userContext.getUser(sessionUser.getId());
+            StreamingResponseBody body = out -> fileService.writeAllFileIds(user, folderId, out);
 
-            return ResponseEntity.ok(Map.of(
-                "fileIds", fileIds,
-                "count", fileIds.size()
-            ));
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
 
         } catch (Exception e) {
             log.error("Error getting all file IDs", e);
@@ -255,12 +524,12 @@ public class FileController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
-            Page<Resource> filesPage = fileService.listFiles(user, folderId, page, size);
+            User user = userContext.getUser(sessionUser.getId());
+            Page<FileSummary> filesPage = fileService.listFiles(user, folderId, page, size);
 
             Map<String, Object> response = new HashMap<>();
             response.put("files", filesPage.getContent().stream()
-                .map(this::fileToMap)
+                .map(this::summaryToMap)
                 .collect(Collectors.toList()));
             response.put("currentPage", filesPage.getNumber());
             response.put("totalPages", filesPage.getTotalPages());
@@ -277,6 +546,49 @@ public class FileController {
         }
     }
 
+    // Cursor-based listing: pass back nextCursor to get the following slice; no OFFSET, count only on request
+    @GetMapping("/list/cursor")
+    public ResponseEntity<?> listFilesByCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "folderId", required = false) Long folderId,
+            @RequestParam(value = "includeTotal", defaultValue = "false") boolean includeTotal,
+            HttpSession session) {
+
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            if (size < 1 || size > 200) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", "Size must be between 1 and 200"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            FileService.FileSlice slice = fileService.listFilesAfter(user, folderId, cursor, size, includeTotal);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("files", slice.files().stream()
+                .map(this::summaryToMap)
+                .collect(Collectors.toList()));
+            response.put("nextCursor", slice.nextCursor());
+            response.put("hasNext", slice.nextCursor() != null);
+            if (slice.totalItems() != null) {
+                response.put("totalItems", slice.totalItems());
+            }
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("Error listing files by cursor", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @GetMapping("/search")
     public ResponseEntity<?> searchFiles(
             @RequestParam("query") String query,
@@ -291,12 +603,12 @@ public class FileController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
-            Page<Resource> filesPage = fileService.searchFiles(user, query, page, size);
+            User user = userContext.getUser(sessionUser.getId());
+            Page<FileSummary> filesPage = fileService.searchFiles(user, query, page, size);
 
             Map<String, Object> response = new HashMap<>();
             response.put("files", filesPage.getContent().stream()
-                .map(this::fileToMap)
+                .map(this::summaryToMap)
                 .collect(Collectors.toList()));
             response.put("currentPage", filesPage.getNumber());
             response.put("totalPages", filesPage.getTotalPages());
@@ -325,7 +637,7 @@ public class FileController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             Resource resource = fileService.moveFile(fileId, targetFolderId, user);
 
             return ResponseEntity.ok(Map.of(
@@ -359,7 +671,7 @@ public class FileController {
                     .body(Map.of("message", "New name is required"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             Resource resource = fileService.renameFile(fileId, newName, user);
 
             return ResponseEntity.ok(Map.of(
@@ -383,7 +695,7 @@ public class FileController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             String token = fileService.generatePublicLink(fileId, user);
 
             return ResponseEntity.ok(Map.of(
@@ -408,7 +720,7 @@ public class FileController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             fileService.revokePublicLink(fileId, user);
 
             return ResponseEntity.ok(Map.of("message", "Public link revoked successfully"));
@@ -429,7 +741,7 @@ public class FileController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             Map<String, Object> storageInfo = fileService.getUserStorageInfo(user);
 
             return ResponseEntity.ok(storageInfo);
@@ -474,13 +786,13 @@ public class FileController {
                 })
                 .collect(java.util.stream.Collectors.toList());
 
-            User user = userRepository.getUserById(sessionUser.getId());
-            fileService.bulkDeleteFiles(fileIds, user);
+            User user = userContext.getUser(sessionUser.getId());
+            Map<String, Object> result = fileService.bulkDeleteFiles(fileIds, user);
 
-            return ResponseEntity.ok(Map.of(
-                "message", "Files deleted successfully",
-                "count", fileIds.size()
-            ));
+            Map<String, Object> response = new HashMap<>(result);
+            response.put("message", "Files moved to trash");
+            response.put("count", result.get("trashed"));
+            return ResponseEntity.ok(response);
 
         } catch (Exception e) {
             log.error("Error bulk deleting files", e);
@@ -535,7 +847,7 @@ public class FileController {
                 }
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             fileService.bulkMoveFiles(fileIds, targetFolderId, user);
 
             return ResponseEntity.ok(Map.of(
@@ -551,6 +863,20 @@ public class FileController {
     }
 
 
+    private Map<String, Object> summaryToMap(FileSummary file) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", file.id());
+        map.put("fileName", file.fileName());
+        map.put("originalName", file.originalName());
+        map.put("fileSize", file.fileSize());
+        map.put("contentType", file.contentType());
+        map.put("uploadedAt", file.uploadedAt());
+        map.put("lastModified", file.lastModified());
+        map.put("isPublic", file.isPublic());
+
+        return map;
+    }
+
     private Map<String, Object> fileToMap(Resource resource) {
         Map<String, Object> map = new HashMap<>();
         map.put("id", resource.getId());
@@ -635,13 +961,13 @@ public class FileController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
-            Page<Resource> filesPage = fileService.searchFilesWithFilters(
+            User user = userContext.getUser(sessionUser.getId());
+            Page<FileSummary> filesPage = fileService.searchFilesWithFilters(
                 user, folderId, query, fileType, minSize, maxSize, page, size);
 
             Map<String, Object> response = new HashMap<>();
             response.put("files", filesPage.getContent().stream()
-                .map(this::fileToMap)
+                .map(this::summaryToMap)
                 .collect(Collectors.toList()));
             response.put("currentPage", filesPage.getNumber());
             response.put("totalPages", filesPage.getTotalPages());
@@ -690,7 +1016,7 @@ public class FileController {
                 })
                 .collect(java.util.stream.Collectors.toList());
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             String downloadUrl = fileService.generateBulkDownloadUrl(fileIds, user);
 
             return ResponseEntity.ok(Map.of(
@@ -706,5 +1032,109 @@ public class FileController {
         }
     }
 
-}
+    @PostMapping("/bulk-download/stream")
+    public ResponseEntity<?> streamBulkDownload(
+            @RequestBody Map<String, Object> request,
+            HttpSession session) {
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Object> fileIdsObj = (List<Object>) request.get("fileIds");
+            if (fileIdsObj == null || fileIdsObj.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", "fileIds is required"));
+            }
+
+            List<Long> fileIds = fileIdsObj.stream()
+                .map(id -> {
+                    if (id instanceof Long) return (Long) id;
+                    else if (id instanceof Integer) return ((Integer) id).longValue();
+                    else if (id instanceof Number) return ((Number) id).longValue();
+                    else return Long.valueOf(id.toString());
+                })
+                .collect(java.util.stream.Collectors.toList());
+
+            User user = userContext.getUser(sessionUser.getId());
+            List<Resource> resources = fileService.getFilesForBulkDownload(fileIds, user);
 
+            StreamingResponseBody body = out -> fileService.writeZip(resources, out);
+            String zipName = "bulk-" + System.currentTimeMillis() + ".zip";
+
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(zipName).build().toString())
+                .body(body);
+
+        } catch (Exception e) {
+            log.error("Error streaming bulk download", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/bulk-download/jobs")
+    public ResponseEntity<?> submitBulkDownloadJob(
+            @RequestBody Map<String, Object> request,
+            HttpSession session) {
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            @SuppressWarnings("unchecked")
+            List<Object> fileIdsObj = (List<Object>) request.get("fileIds");
+            if (fileIdsObj == null || fileIdsObj.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", "fileIds is required"));
+            }
+
+            List<Long> fileIds = fileIdsObj.stream()
+                .map(id -> Long.valueOf(id.toString()))
+                .collect(Collectors.toList());
+
+            User user = userContext.getUser(sessionUser.getId());
+            BulkDownloadJob job = bulkDownloadJobService.submitJob(fileIds, user);
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "jobId", job.getId(),
+                "status", job.getStatus(),
+                "totalFiles", job.getTotalFiles()
+            ));
+
+        } catch (Exception e) {
+            log.error("Error submitting bulk download job", e);
+            return ResponseEntity.badRequest()
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/bulk-download/jobs/{jobId}")
+    public ResponseEntity<?> getBulkDownloadJobStatus(
+            @PathVariable String jobId,
+            HttpSession session) {
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            return ResponseEntity.ok(bulkDownloadJobService.getJobStatus(jobId, user));
+
+        } catch (Exception e) {
+            log.error("Error getting bulk download job status", e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+}
@@ -2,12 +2,14 @@ package com.example.valetkey.controller;
 
 import com.example.valetkey.model.Folder;
 import com.example.valetkey.model.User;
-import com.example.valetkey.repository.UserRepository;
 import com.example.valetkey.service.FolderService;
+import com.example.valetkey.service.FolderTreeCache;
+import com.example.valetkey.service.UserContext;
 import jakarta.servlet.http.HttpSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -26,7 +28,7 @@ public class FolderController {
     private FolderService folderService;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserContext userContext;
 
     @PostMapping("/create")
     public ResponseEntity<?> createFolder(
@@ -44,7 +46,7 @@ public class FolderController {
                 ? Long.valueOf(request.get("parentFolderId").toString()) 
                 : null;
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             Folder folder = folderService.createFolder(folderName, parentFolderId, user);
 
             Map<String, Object> response = new HashMap<>();
@@ -71,7 +73,7 @@ public class FolderController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             List<Folder> folders = folderService.listFolders(parentFolderId, user);
 
             Map<String, Object> response = new HashMap<>();
@@ -97,7 +99,7 @@ public class FolderController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             Folder folder = folderService.getFolder(folderId, user);
 
             return ResponseEntity.ok(folderToMap(folder));
@@ -118,8 +120,8 @@ public class FolderController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
-            List<Map<String, Object>> tree = folderService.getFolderTree(user);
+            User user = userContext.getUser(sessionUser.getId());
+            List<FolderTreeCache.FolderTreeNode> tree = folderService.getFolderTree(user);
 
             Map<String, Object> response = new HashMap<>();
             response.put("tree", tree);
@@ -142,7 +144,7 @@ public class FolderController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             List<Map<String, Object>> breadcrumb = folderService.getBreadcrumb(folderId, user);
 
             Map<String, Object> response = new HashMap<>();
@@ -166,7 +168,7 @@ public class FolderController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             List<Map<String, Object>> breadcrumb = folderService.getBreadcrumb(null, user);
 
             Map<String, Object> response = new HashMap<>();
@@ -199,7 +201,7 @@ public class FolderController {
                     .body(Map.of("message", "New name is required"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             Folder folder = folderService.renameFolder(folderId, newName, user);
 
             return ResponseEntity.ok(Map.of(
@@ -226,7 +228,7 @@ public class FolderController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             Folder folder = folderService.moveFolder(folderId, targetParentFolderId, user);
 
             return ResponseEntity.ok(Map.of(
@@ -253,7 +255,7 @@ public class FolderController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
+            User user = userContext.getUser(sessionUser.getId());
             folderService.deleteFolder(folderId, deleteContents, user);
 
             return ResponseEntity.ok(Map.of("message", "Folder deleted successfully"));
@@ -268,6 +270,8 @@ public class FolderController {
     @GetMapping("/search")
     public ResponseEntity<?> searchFolders(
             @RequestParam("query") String query,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "50") int size,
             HttpSession session) {
         try {
             User sessionUser = (User) session.getAttribute("user");
@@ -276,18 +280,23 @@ public class FolderController {
                     .body(Map.of("message", "Not authenticated"));
             }
 
-            User user = userRepository.getUserById(sessionUser.getId());
-            List<Folder> folders = folderService.searchFolders(query, user);
+            User user = userContext.getUser(sessionUser.getId());
+            Page<Folder> result = folderService.searchFolders(query, user, page, Math.min(size, 200));
+            List<Folder> folders = result.getContent();
+            Map<Long, String> fullPaths = folderService.getFullPaths(folders);
 
             Map<String, Object> response = new HashMap<>();
             response.put("folders", folders.stream()
                 .map(folder -> {
                     Map<String, Object> folderMap = folderToMap(folder);
-                    folderMap.put("fullPath", folderService.getFullPath(folder));
+                    folderMap.put("fullPath", fullPaths.get(folder.getId()));
                     return folderMap;
                 })
                 .toList());
             response.put("query", query);
+            response.put("currentPage", result.getNumber());
+            response.put("totalItems", result.getTotalElements());
+            response.put("totalPages", result.getTotalPages());
 
             return ResponseEntity.ok(response);
 
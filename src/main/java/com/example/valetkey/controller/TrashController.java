@@ -0,0 +1,204 @@
+package com.example.valetkey.controller;
+
+import com.example.valetkey.model.Folder;
+import com.example.valetkey.model.User;
+import com.example.valetkey.service.TrashService;
+import com.example.valetkey.service.UserContext;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/trash")
+public class TrashController {
+
+    private static final Logger log = LoggerFactory.getLogger(TrashController.class);
+
+    @Autowired
+    private TrashService trashService;
+
+    @Autowired
+    private UserContext userContext;
+
+    @GetMapping
+    public ResponseEntity<?> listTrash(
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            HttpSession session) {
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            return ResponseEntity.ok(trashService.listTrash(user, page, size));
+
+        } catch (Exception e) {
+            log.error("Error listing trash", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/files")
+    public ResponseEntity<?> trashFiles(
+            @RequestBody Map<String, Object> request,
+            HttpSession session) {
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            List<Long> fileIds = parseFileIds(request);
+            if (fileIds.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", "fileIds is required"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            Map<String, Object> response = new HashMap<>(trashService.trashFiles(fileIds, user));
+            response.put("message", "Files moved to trash");
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("Error moving files to trash", e);
+            return ResponseEntity.badRequest()
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/files/restore")
+    public ResponseEntity<?> restoreFiles(
+            @RequestBody Map<String, Object> request,
+            HttpSession session) {
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            List<Long> fileIds = parseFileIds(request);
+            if (fileIds.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", "fileIds is required"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            Map<String, Object> response = new HashMap<>(trashService.restoreFiles(fileIds, user));
+            response.put("message", "Files restored");
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("Error restoring files", e);
+            return ResponseEntity.badRequest()
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/files/purge")
+    public ResponseEntity<?> purgeFiles(
+            @RequestBody Map<String, Object> request,
+            HttpSession session) {
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            List<Long> fileIds = parseFileIds(request);
+            if (fileIds.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("message", "fileIds is required"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            int purged = trashService.purgeFiles(fileIds, user);
+
+            return ResponseEntity.ok(Map.of(
+                "message", "Files permanently deleted",
+                "count", purged
+            ));
+
+        } catch (Exception e) {
+            log.error("Error purging files", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping
+    public ResponseEntity<?> emptyTrash(HttpSession session) {
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            int purged = trashService.emptyTrash(user);
+
+            return ResponseEntity.ok(Map.of(
+                "message", "Trash emptied",
+                "count", purged
+            ));
+
+        } catch (Exception e) {
+            log.error("Error emptying trash", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/folders/{folderId}/restore")
+    public ResponseEntity<?> restoreFolder(
+            @PathVariable Long folderId,
+            HttpSession session) {
+        try {
+            User sessionUser = (User) session.getAttribute("user");
+            if (sessionUser == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Not authenticated"));
+            }
+
+            User user = userContext.getUser(sessionUser.getId());
+            Folder folder = trashService.restoreFolder(folderId, user);
+
+            return ResponseEntity.ok(Map.of(
+                "message", "Folder restored",
+                "folderId", folder.getId()
+            ));
+
+        } catch (Exception e) {
+            log.error("Error restoring folder", e);
+            return ResponseEntity.badRequest()
+                .body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    private List<Long> parseFileIds(Map<String, Object> request) {
+        @SuppressWarnings("unchecked")
+        List<Object> fileIdsObj = (List<Object>) request.get("fileIds");
+        if (fileIdsObj == null) {
+            return List.of();
+        }
+        return fileIdsObj.stream()
+            .map(id -> Long.valueOf(id.toString()))
+            .collect(Collectors.toList());
+    }
+}
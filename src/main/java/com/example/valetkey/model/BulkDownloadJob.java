@@ -0,0 +1,206 @@
+package com.example.valetkey.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "bulk_download_jobs", indexes = {
+    @Index(name = "idx_bulk_download_jobs_user_hash", columnList = "user_id, file_set_hash")
+})
+public class BulkDownloadJob {
+
+    // Random id so job ids cannot be enumerated
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // SHA-256 over the sorted resource ids; identical selections share one archive
+    @Column(name = "file_set_hash", nullable = false, length = 64)
+    private String fileSetHash;
+
+    @Column(name = "status", nullable = false)
+    private String status = "PENDING"; // PENDING, RUNNING, COMPLETED, FAILED
+
+    @Column(name = "total_files", nullable = false)
+    private Integer totalFiles;
+
+    @Column(name = "total_bytes")
+    private Long totalBytes;
+
+    @Column(name = "files_processed")
+    private Integer filesProcessed = 0;
+
+    @Column(name = "bytes_processed")
+    private Long bytesProcessed = 0L;
+
+    @Column(name = "object_key")
+    private String objectKey;
+
+    @Column(name = "archive_size")
+    private Long archiveSize;
+
+    @Column(name = "error_message", length = 1024)
+    private String errorMessage;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    // Refreshed by the instance running the job; a PENDING/RUNNING job whose heartbeat stops was orphaned
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    // Constructors
+    public BulkDownloadJob() {
+    }
+
+    public BulkDownloadJob(String id, Long userId, String fileSetHash, Integer totalFiles, Long totalBytes) {
+        this.id = id;
+        this.userId = userId;
+        this.fileSetHash = fileSetHash;
+        this.totalFiles = totalFiles;
+        this.totalBytes = totalBytes;
+    }
+
+    // A new job counts as alive from its insert, so the stale sweep cannot fail it before it starts
+    @PrePersist
+    private void prePersist() {
+        if (heartbeatAt == null) {
+            heartbeatAt = LocalDateTime.now();
+        }
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getFileSetHash() {
+        return fileSetHash;
+    }
+
+    public void setFileSetHash(String fileSetHash) {
+        this.fileSetHash = fileSetHash;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Integer getTotalFiles() {
+        return totalFiles;
+    }
+
+    public void setTotalFiles(Integer totalFiles) {
+        this.totalFiles = totalFiles;
+    }
+
+    public Long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(Long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public Integer getFilesProcessed() {
+        return filesProcessed;
+    }
+
+    public void setFilesProcessed(Integer filesProcessed) {
+        this.filesProcessed = filesProcessed;
+    }
+
+    public Long getBytesProcessed() {
+        return bytesProcessed;
+    }
+
+    public void setBytesProcessed(Long bytesProcessed) {
+        this.bytesProcessed = bytesProcessed;
+    }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    public void setObjectKey(String objectKey) {
+        this.objectKey = objectKey;
+    }
+
+    public Long getArchiveSize() {
+        return archiveSize;
+    }
+
+    public void setArchiveSize(Long archiveSize) {
+        this.archiveSize = archiveSize;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+
+    public boolean isFinished() {
+        return "COMPLETED".equals(status) || "FAILED".equals(status);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.valetkey.model;
+
+import jakarta.persistence.*;
+
+// Inverted index over file names: one row per distinct trigram of a file's normalized name
+@Entity
+@Table(name = "file_name_tokens", indexes = {
+    @Index(name = "idx_file_name_tokens_lookup", columnList = "uploader_id, token, resource_id"),
+    @Index(name = "idx_file_name_tokens_resource", columnList = "resource_id")
+})
+public class FileNameToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "resource_id", nullable = false)
+    private Long resourceId;
+
+    // Denormalized so a lookup never leaves the user's slice of the index
+    @Column(name = "uploader_id", nullable = false)
+    private Long uploaderId;
+
+    @Column(name = "token", nullable = false, length = 16)
+    private String token;
+
+    // Constructors
+    public FileNameToken() {
+    }
+
+    public FileNameToken(Long resourceId, Long uploaderId, String token) {
+        this.resourceId = resourceId;
+        this.uploaderId = uploaderId;
+        this.token = token;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(Long resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public Long getUploaderId() {
+        return uploaderId;
+    }
+
+    public void setUploaderId(Long uploaderId) {
+        this.uploaderId = uploaderId;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
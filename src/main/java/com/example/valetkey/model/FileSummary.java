@@ -0,0 +1,16 @@
+package com.example.valetkey.model;
+
+import java.time.LocalDateTime;
+
+// Read-only projection of the Resource columns shown in file listings; built by JPQL constructor expressions
+public record FileSummary(
+    Long id,
+    String fileName,
+    String originalName,
+    Long fileSize,
+    String contentType,
+    LocalDateTime uploadedAt,
+    LocalDateTime lastModified,
+    boolean isPublic
+) {
+}
@@ -2,9 +2,14 @@ package com.example.valetkey.model;
 
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "folders")
+@Table(name = "folders", indexes = {
+    @Index(name = "idx_folders_path", columnList = "path"),
+    @Index(name = "idx_folders_owner_normalized_name", columnList = "owner_id, normalized_name")
+})
 public class Folder {
 
     @Id
@@ -14,11 +19,11 @@ public class Folder {
     @Column(name = "folder_name", nullable = false)
     private String folderName;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_folder_id")
     private Folder parentFolder;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", nullable = false)
     private User owner;
 
@@ -34,6 +39,14 @@ public class Folder {
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
 
+    // Materialized path of ids from the root down to this folder, e.g. "/3/17/42/"
+    @Column(name = "path", length = 760)
+    private String path;
+
+    // NameNormalizer form of folderName, kept in sync by the entity callbacks (search column)
+    @Column(name = "normalized_name")
+    private String normalizedName;
+
     // Constructors
     public Folder() {
     }
@@ -44,9 +57,15 @@ public class Folder {
         this.owner = owner;
     }
 
+    @PrePersist
+    private void prePersist() {
+        normalizedName = NameNormalizer.normalize(folderName);
+    }
+
     @PreUpdate
     private void preUpdate() {
         lastModified = LocalDateTime.now();
+        normalizedName = NameNormalizer.normalize(folderName);
     }
 
     // Getters and Setters
@@ -125,5 +144,35 @@ public class Folder {
         this.isDeleted = false;
         this.deletedAt = null;
     }
-}
 
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    // Ids on the path, root first, including this folder
+    public List<Long> getPathIds() {
+        List<Long> ids = new ArrayList<>();
+        if (path == null) {
+            return ids;
+        }
+        for (String part : path.split("/")) {
+            if (!part.isEmpty()) {
+                ids.add(Long.valueOf(part));
+            }
+        }
+        return ids;
+    }
+
+    // True if this folder is other or one of its ancestors
+    public boolean isAncestorOrSelf(Folder other) {
+        return path != null && other.getPath() != null && other.getPath().startsWith(path);
+    }
+}
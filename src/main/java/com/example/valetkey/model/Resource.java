@@ -6,7 +6,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "resources")
+@Table(name = "resources", indexes = {
+    @Index(name = "idx_resources_uploader_normalized_name", columnList = "uploader_id, normalized_name"),
+    @Index(name = "idx_resources_listing", columnList = "uploader_id, folder_id, is_deleted, uploaded_at, id")
+})
 public class Resource {
 
     @Id
@@ -22,11 +25,11 @@ public class Resource {
     @Column(name = "original_name")
     private String originalName;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "uploader_id", nullable = false)
     private User uploader;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "folder_id")
     private Folder folder;
 
@@ -69,6 +72,24 @@ public class Resource {
     @Column(name = "backup_error", length = 512)
     private String backupError;
 
+    // Upload lifecycle: PENDING until confirmUpload verified the object, then COMPLETED (null for legacy rows)
+    @Column(name = "upload_status")
+    private String uploadStatus;
+
+    // S3 multipart upload state (null for single-PUT uploads or once the upload is completed)
+    @Column(name = "multipart_upload_id", length = 1024)
+    private String multipartUploadId;
+
+    @Column(name = "multipart_part_size")
+    private Long multipartPartSize;
+
+    @Column(name = "multipart_part_count")
+    private Integer multipartPartCount;
+
+    // NameNormalizer form of fileName for search; JDBC inserts set it themselves
+    @Column(name = "normalized_name")
+    private String normalizedName;
+
     // Constructors
     public Resource() {
     }
@@ -93,9 +114,15 @@ public class Resource {
         this.backupError = backupError;
     }
 
+    @PrePersist
+    private void prePersist() {
+        normalizedName = NameNormalizer.normalize(fileName);
+    }
+
     @PreUpdate
     private void preUpdate() {
         lastModified = LocalDateTime.now();
+        normalizedName = NameNormalizer.normalize(fileName);
     }
 
     // Getters and Setters
@@ -243,6 +270,51 @@ public class Resource {
         this.backupError = backupError;
     }
 
+    public String getUploadStatus() {
+        return uploadStatus;
+    }
+
+    public void setUploadStatus(String uploadStatus) {
+        this.uploadStatus = uploadStatus;
+    }
+
+    public String getMultipartUploadId() {
+        return multipartUploadId;
+    }
+
+    public void setMultipartUploadId(String multipartUploadId) {
+        this.multipartUploadId = multipartUploadId;
+    }
+
+    public Long getMultipartPartSize() {
+        return multipartPartSize;
+    }
+
+    public void setMultipartPartSize(Long multipartPartSize) {
+        this.multipartPartSize = multipartPartSize;
+    }
+
+    public Integer getMultipartPartCount() {
+        return multipartPartCount;
+    }
+
+    public void setMultipartPartCount(Integer multipartPartCount) {
+        this.multipartPartCount = multipartPartCount;
+    }
+
+    public boolean isMultipartUpload() {
+        return multipartUploadId != null;
+    }
+
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    // Object was verified in storage by confirmUpload (legacy rows predate the status and were always confirmed)
+    public boolean isUploadCompleted() {
+        return uploadStatus == null || "COMPLETED".equals(uploadStatus);
+    }
+
     // Generate public link token
     public void generatePublicLinkToken() {
         this.publicLinkToken = UUID.randomUUID().toString();
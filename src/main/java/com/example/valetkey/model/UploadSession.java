@@ -0,0 +1,167 @@
+package com.example.valetkey.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@Entity
+@Table(name = "upload_sessions", indexes = {
+    @Index(name = "idx_upload_sessions_status_activity", columnList = "status, last_activity_at")
+})
+public class UploadSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Plain ids rather than associations: the session outlives the PENDING Resource row when it is swept
+    @Column(name = "resource_id", nullable = false, unique = true)
+    private Long resourceId;
+
+    @Column(name = "uploader_id", nullable = false)
+    private Long uploaderId;
+
+    @Column(name = "object_key", nullable = false)
+    private String objectKey;
+
+    @Column(name = "upload_id", nullable = false, length = 1024)
+    private String uploadId;
+
+    @Column(name = "part_size", nullable = false)
+    private Long partSize;
+
+    @Column(name = "part_count", nullable = false)
+    private Integer partCount;
+
+    @Column(name = "status", nullable = false)
+    private String status = "ACTIVE"; // ACTIVE, COMPLETED, ABORTED
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt = LocalDateTime.now();
+
+    // Completed part number -> ETag reported by the client (or reconciled from S3 ListParts)
+    @ElementCollection
+    @CollectionTable(name = "upload_session_parts", joinColumns = @JoinColumn(name = "session_id"))
+    @MapKeyColumn(name = "part_number")
+    @Column(name = "etag", nullable = false)
+    private Map<Integer, String> completedParts = new HashMap<>();
+
+    // Constructors
+    public UploadSession() {
+    }
+
+    public UploadSession(Long resourceId, Long uploaderId, String objectKey, String uploadId, Long partSize, Integer partCount) {
+        this.resourceId = resourceId;
+        this.uploaderId = uploaderId;
+        this.objectKey = objectKey;
+        this.uploadId = uploadId;
+        this.partSize = partSize;
+        this.partCount = partCount;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(Long resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    public Long getUploaderId() {
+        return uploaderId;
+    }
+
+    public void setUploaderId(Long uploaderId) {
+        this.uploaderId = uploaderId;
+    }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    public void setObjectKey(String objectKey) {
+        this.objectKey = objectKey;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public Long getPartSize() {
+        return partSize;
+    }
+
+    public void setPartSize(Long partSize) {
+        this.partSize = partSize;
+    }
+
+    public Integer getPartCount() {
+        return partCount;
+    }
+
+    public void setPartCount(Integer partCount) {
+        this.partCount = partCount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getLastActivityAt() {
+        return lastActivityAt;
+    }
+
+    public void setLastActivityAt(LocalDateTime lastActivityAt) {
+        this.lastActivityAt = lastActivityAt;
+    }
+
+    public Map<Integer, String> getCompletedParts() {
+        return completedParts;
+    }
+
+    public void setCompletedParts(Map<Integer, String> completedParts) {
+        this.completedParts = completedParts;
+    }
+
+    public boolean isActive() {
+        return "ACTIVE".equals(status);
+    }
+
+    public boolean isAllPartsRecorded() {
+        return completedParts.size() == partCount;
+    }
+
+    public void touch() {
+        this.lastActivityAt = LocalDateTime.now();
+    }
+}
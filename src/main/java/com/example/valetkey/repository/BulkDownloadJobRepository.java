@@ -0,0 +1,46 @@
+package com.example.valetkey.repository;
+
+import com.example.valetkey.model.BulkDownloadJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BulkDownloadJobRepository extends JpaRepository<BulkDownloadJob, String> {
+
+    Optional<BulkDownloadJob> findByIdAndUserId(String id, Long userId);
+
+    // Live running jobs (heartbeat after staleBefore) or unexpired archives for the same selection, newest first
+    @Query("SELECT j FROM BulkDownloadJob j WHERE j.userId = :userId AND j.fileSetHash = :fileSetHash " +
+           "AND ((j.status IN ('PENDING', 'RUNNING') AND j.heartbeatAt > :staleBefore) " +
+           "OR (j.status = 'COMPLETED' AND j.expiresAt > :now)) " +
+           "ORDER BY j.createdAt DESC")
+    List<BulkDownloadJob> findReusableJobs(Long userId, String fileSetHash, LocalDateTime now,
+                                           LocalDateTime staleBefore, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BulkDownloadJob j SET j.filesProcessed = :filesProcessed, j.bytesProcessed = :bytesProcessed, " +
+           "j.heartbeatAt = :now WHERE j.id = :id")
+    int updateProgress(String id, Integer filesProcessed, Long bytesProcessed, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE BulkDownloadJob j SET j.heartbeatAt = :now WHERE j.id IN :ids AND j.status IN ('PENDING', 'RUNNING')")
+    int touchHeartbeats(Collection<String> ids, LocalDateTime now);
+
+    // Jobs left PENDING/RUNNING by an instance that stopped or crashed
+    @Transactional
+    @Modifying
+    @Query("UPDATE BulkDownloadJob j SET j.status = 'FAILED', j.errorMessage = :message " +
+           "WHERE j.status IN ('PENDING', 'RUNNING') AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    int failStaleJobs(LocalDateTime staleBefore, String message);
+}
@@ -2,10 +2,15 @@ package com.example.valetkey.repository;
 
 import com.example.valetkey.model.Folder;
 import com.example.valetkey.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,8 +41,74 @@ public interface FolderRepository extends JpaRepository<Folder, Long> {
     @Query("SELECT COUNT(f) > 0 FROM Folder f WHERE f.owner = :owner AND f.parentFolder = :parentFolder AND f.folderName = :folderName AND f.isDeleted = false")
     boolean existsByOwnerAndParentFolderAndFolderName(User owner, Folder parentFolder, String folderName);
     
+    // Same check at the root; "parentFolder = :parentFolder" never matches a null parent
+    @Query("SELECT COUNT(f) > 0 FROM Folder f WHERE f.owner = :owner AND f.parentFolder IS NULL AND f.folderName = :folderName AND f.isDeleted = false")
+    boolean existsRootFolderByOwnerAndFolderName(User owner, String folderName);
+    
+    // Name search on the normalized column; prefix matches rank first (query must be normalized and LIKE-escaped)
+    @Query(value = "SELECT f FROM Folder f WHERE f.owner = :owner AND f.isDeleted = false " +
+                   "AND f.normalizedName LIKE CONCAT('%', :query, '%') ESCAPE '!' " +
+                   "ORDER BY CASE WHEN f.normalizedName LIKE CONCAT(:query, '%') ESCAPE '!' THEN 0 ELSE 1 END, f.normalizedName ASC, f.id ASC",
+           countQuery = "SELECT COUNT(f) FROM Folder f WHERE f.owner = :owner AND f.isDeleted = false " +
+                        "AND f.normalizedName LIKE CONCAT('%', :query, '%') ESCAPE '!'")
+    Page<Folder> searchByNormalizedName(User owner, String query, Pageable pageable);
+    
+    @Query("SELECT f.id, f.folderName FROM Folder f WHERE f.id > :afterId AND f.normalizedName IS NULL ORDER BY f.id")
+    List<Object[]> findNamesWithoutNormalizedName(Long afterId, Pageable pageable);
+    
     // Find deleted folders
     @Query("SELECT f FROM Folder f WHERE f.owner = :owner AND f.isDeleted = true ORDER BY f.deletedAt DESC")
     List<Folder> findDeletedFoldersByOwner(User owner);
+    
+    // Folder plus all descendants: one prefix scan on the materialized path index
+    @Query("SELECT f.id FROM Folder f WHERE f.path LIKE CONCAT(:pathPrefix, '%')")
+    List<Long> findSubtreeIds(String pathPrefix);
+    
+    // Re-roots a subtree after a move: every path starting with oldPrefix gets newPrefix instead
+    @Modifying
+    @Query("UPDATE Folder f SET f.path = CONCAT(:newPrefix, SUBSTRING(f.path, :tailStart)) WHERE f.path LIKE CONCAT(:oldPrefix, '%')")
+    int rewritePathPrefix(String oldPrefix, String newPrefix, int tailStart);
+    
+    @Query("SELECT MAX(LENGTH(f.path)) FROM Folder f WHERE f.path LIKE CONCAT(:pathPrefix, '%')")
+    Integer findMaxPathLength(String pathPrefix);
+    
+    // id, parent id of folders without a path, in id order (path backfill)
+    @Query("SELECT f.id, p.id FROM Folder f LEFT JOIN f.parentFolder p WHERE f.id > :afterId AND f.path IS NULL ORDER BY f.id")
+    List<Object[]> findParentLinksWithoutPath(Long afterId, Pageable pageable);
+    
+    @Query("SELECT f.id, p.id FROM Folder f LEFT JOIN f.parentFolder p WHERE f.owner = :owner AND f.path IS NULL")
+    List<Object[]> findParentLinksWithoutPathByOwner(User owner);
+    
+    // id, parent id, path of the given folders (ancestor lookup while resolving missing paths)
+    @Query("SELECT f.id, p.id, f.path FROM Folder f LEFT JOIN f.parentFolder p WHERE f.id IN :ids")
+    List<Object[]> findPathLinks(Collection<Long> ids);
+    
+    // id, name, parent id, createdAt, lastModified of the user's live folders (folder tree)
+    @Query("SELECT f.id, f.folderName, p.id, f.createdAt, f.lastModified FROM Folder f LEFT JOIN f.parentFolder p " +
+           "WHERE f.owner.id = :ownerId AND f.isDeleted = false")
+    List<Object[]> findTreeRowsByOwnerId(Long ownerId);
+    
+    @Query("SELECT COUNT(f) > 0 FROM Folder f WHERE f.parentFolder = :parentFolder AND f.isDeleted = false")
+    boolean hasActiveChildren(Folder parentFolder);
+    
+    @Modifying
+    @Query("UPDATE Folder f SET f.isDeleted = true, f.deletedAt = :deletedAt WHERE f.id IN :folderIds AND f.isDeleted = false")
+    int moveToTrash(List<Long> folderIds, LocalDateTime deletedAt);
+    
+    // Restores only the folders that were trashed together (same deletedAt)
+    @Modifying
+    @Query("UPDATE Folder f SET f.isDeleted = false, f.deletedAt = NULL WHERE f.id IN :folderIds AND f.isDeleted = true AND f.deletedAt = :deletedAt")
+    int restoreFromTrash(List<Long> folderIds, LocalDateTime deletedAt);
+    
+    @Query("SELECT f.id FROM Folder f WHERE f.isDeleted = true AND f.deletedAt < :cutoff ORDER BY f.deletedAt ASC")
+    List<Long> findTrashedIdsBefore(LocalDateTime cutoff, Pageable pageable);
+    
+    // id, path, owner id of the children that outlive a purge of their parents
+    @Query("SELECT f.id, f.path, f.owner.id FROM Folder f WHERE f.parentFolder.id IN :folderIds AND f.id NOT IN :folderIds")
+    List<Object[]> findChildRowsOutside(List<Long> folderIds);
+    
+    // Detach children before the parents are purged so the self-referencing FK never blocks the delete
+    @Modifying
+    @Query("UPDATE Folder f SET f.parentFolder = NULL WHERE f.parentFolder.id IN :folderIds")
+    int detachChildren(List<Long> folderIds);
 }
-
@@ -0,0 +1,20 @@
+package com.example.valetkey.repository;
+
+import com.example.valetkey.model.ObjectDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ObjectDeletionRepository extends JpaRepository<ObjectDeletion, Long> {
+
+    @Query("SELECT d FROM ObjectDeletion d WHERE d.nextAttemptAt <= :now ORDER BY d.nextAttemptAt ASC, d.id ASC")
+    List<ObjectDeletion> findDue(LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT COUNT(d) FROM ObjectDeletion d")
+    long countPending();
+}
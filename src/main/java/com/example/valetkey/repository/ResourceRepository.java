@@ -1,78 +1,143 @@
 package com.example.valetkey.repository;
 
+import com.example.valetkey.model.FileSummary;
 import com.example.valetkey.model.Folder;
 import com.example.valetkey.model.Resource;
 import com.example.valetkey.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ResourceRepository extends JpaRepository<Resource, Long> {
+
+    // Listing columns only: no entity hydration, no eager uploader/folder fetch, nothing tracked by the persistence context
+    String FILE_SUMMARY = "SELECT new com.example.valetkey.model.FileSummary(r.id, r.fileName, r.originalName, " +
+        "r.fileSize, r.contentType, r.uploadedAt, r.lastModified, r.isPublic) FROM Resource r ";
+    
+    // Offset listing projected to FileSummary (folder null for root)
+    @Query(value = FILE_SUMMARY + "WHERE r.uploader = :uploader AND (r.folder IS NULL AND :folder IS NULL OR r.folder = :folder) " +
+                   "AND r.isDeleted = false ORDER BY r.uploadedAt DESC",
+           countQuery = "SELECT COUNT(r) FROM Resource r WHERE r.uploader = :uploader " +
+                        "AND (r.folder IS NULL AND :folder IS NULL OR r.folder = :folder) AND r.isDeleted = false")
+    Page<FileSummary> findSummariesByUploaderAndFolderNullable(User uploader, Folder folder, Pageable pageable);
+
+    @Query(value = FILE_SUMMARY + "WHERE r.uploader = :uploader AND r.isDeleted = false " +
+                   "AND (:folder IS NULL OR r.folder = :folder) " +
+                   "AND (:fileType IS NULL OR r.contentType LIKE CONCAT(:fileType, '%')) " +
+                   "AND (:minSize IS NULL OR r.fileSize >= :minSize) " +
+                   "AND (:maxSize IS NULL OR r.fileSize <= :maxSize) " +
+                   "ORDER BY r.uploadedAt DESC",
+           countQuery = "SELECT COUNT(r) FROM Resource r WHERE r.uploader = :uploader AND r.isDeleted = false " +
+                        "AND (:folder IS NULL OR r.folder = :folder) " +
+                        "AND (:fileType IS NULL OR r.contentType LIKE CONCAT(:fileType, '%')) " +
+                        "AND (:minSize IS NULL OR r.fileSize >= :minSize) " +
+                        "AND (:maxSize IS NULL OR r.fileSize <= :maxSize)")
+    Page<FileSummary> findSummariesWithFilters(User uploader, Folder folder, String fileType, Long minSize, Long maxSize, Pageable pageable);
+
+    @Query(FILE_SUMMARY + "WHERE r.id IN :ids")
+    List<FileSummary> findSummariesByIds(List<Long> ids);
+
+    // Keyset listing on (uploadedAt, id), newest first, using the OR-expanded form of (uploadedAt, id) < (:uploadedAt, :id)
+    // (row-value comparisons are not range-optimized everywhere); root and folder are separate queries so each seeks idx_resources_listing
+    @Query(FILE_SUMMARY + "WHERE r.uploader = :uploader AND r.folder IS NULL AND r.isDeleted = false " +
+           "ORDER BY r.uploadedAt DESC, r.id DESC")
+    List<FileSummary> findRootListingFirst(User uploader, Pageable pageable);
+
+    @Query(FILE_SUMMARY + "WHERE r.uploader = :uploader AND r.folder IS NULL AND r.isDeleted = false " +
+           "AND (r.uploadedAt < :uploadedAt OR (r.uploadedAt = :uploadedAt AND r.id < :id)) " +
+           "ORDER BY r.uploadedAt DESC, r.id DESC")
+    List<FileSummary> findRootListingAfter(User uploader, LocalDateTime uploadedAt, Long id, Pageable pageable);
+
+    @Query(FILE_SUMMARY + "WHERE r.uploader = :uploader AND r.folder = :folder AND r.isDeleted = false " +
+           "ORDER BY r.uploadedAt DESC, r.id DESC")
+    List<FileSummary> findFolderListingFirst(User uploader, Folder folder, Pageable pageable);
+
+    @Query(FILE_SUMMARY + "WHERE r.uploader = :uploader AND r.folder = :folder AND r.isDeleted = false " +
+           "AND (r.uploadedAt < :uploadedAt OR (r.uploadedAt = :uploadedAt AND r.id < :id)) " +
+           "ORDER BY r.uploadedAt DESC, r.id DESC")
+    List<FileSummary> findFolderListingAfter(User uploader, Folder folder, LocalDateTime uploadedAt, Long id, Pageable pageable);
+
+    @Query("SELECT COUNT(r) FROM Resource r WHERE r.uploader = :uploader AND r.folder IS NULL AND r.isDeleted = false")
+    long countRootListing(User uploader);
+
+    @Query("SELECT COUNT(r) FROM Resource r WHERE r.uploader = :uploader AND r.folder = :folder AND r.isDeleted = false")
+    long countFolderListing(User uploader, Folder folder);
+
     
-    // Find all files by uploader (with pagination) - exclude deleted
-    @Query("SELECT r FROM Resource r WHERE r.uploader = :uploader AND r.isDeleted = false ORDER BY r.uploadedAt DESC")
-    Page<Resource> findByUploaderOrderByUploadedAtDesc(User uploader, Pageable pageable);
-    
-    // Find all files by uploader and folder (with pagination) - exclude deleted
-    @Query("SELECT r FROM Resource r WHERE r.uploader = :uploader AND r.folder = :folder AND r.isDeleted = false ORDER BY r.uploadedAt DESC")
-    Page<Resource> findByUploaderAndFolderOrderByUploadedAtDesc(User uploader, Folder folder, Pageable pageable);
-    
-    // Find all files by uploader and folder (null for root) (with pagination) - exclude deleted
-    @Query("SELECT r FROM Resource r WHERE r.uploader = :uploader AND (r.folder IS NULL AND :folder IS NULL OR r.folder = :folder) AND r.isDeleted = false ORDER BY r.uploadedAt DESC")
-    Page<Resource> findByUploaderAndFolderNullableOrderByUploadedAtDesc(User uploader, Folder folder, Pageable pageable);
-    
-    // Find all files by uploader (without pagination) - exclude deleted
-    @Query("SELECT r FROM Resource r WHERE r.uploader = :uploader AND r.isDeleted = false ORDER BY r.uploadedAt DESC")
-    List<Resource> findByUploaderOrderByUploadedAtDesc(User uploader);
-    
-    // Find all files by uploader and folder (without pagination) - exclude deleted
-    @Query("SELECT r FROM Resource r WHERE r.uploader = :uploader AND (r.folder IS NULL AND :folder IS NULL OR r.folder = :folder) AND r.isDeleted = false ORDER BY r.uploadedAt DESC")
-    List<Resource> findByUploaderAndFolderNullableOrderByUploadedAtDesc(User uploader, Folder folder);
-    
-    // Search files by name (case-insensitive, with pagination) - exclude deleted
-    @Query("SELECT r FROM Resource r WHERE r.uploader = :uploader AND r.isDeleted = false AND LOWER(r.fileName) LIKE LOWER(CONCAT('%', :query, '%'))")
-    Page<Resource> searchByUploaderAndFileName(User uploader, String query, Pageable pageable);
-    
-    // Search files by name with folder filter (case-insensitive, with pagination) - exclude deleted
-    @Query("SELECT r FROM Resource r WHERE r.uploader = :uploader AND (r.folder IS NULL AND :folder IS NULL OR r.folder = :folder) AND r.isDeleted = false AND LOWER(r.fileName) LIKE LOWER(CONCAT('%', :query, '%'))")
-    Page<Resource> searchByUploaderAndFolderAndFileName(User uploader, Folder folder, String query, Pageable pageable);
-    
-    // Search files with filters (file type, size range, date range)
-    @Query("SELECT r FROM Resource r WHERE r.uploader = :uploader AND r.isDeleted = false " +
-           "AND (:folder IS NULL OR r.folder = :folder) " +
-           "AND (:query IS NULL OR LOWER(r.fileName) LIKE LOWER(CONCAT('%', :query, '%'))) " +
-           "AND (:fileType IS NULL OR r.contentType LIKE CONCAT(:fileType, '%')) " +
-           "AND (:minSize IS NULL OR r.fileSize >= :minSize) " +
-           "AND (:maxSize IS NULL OR r.fileSize <= :maxSize) " +
-           "ORDER BY r.uploadedAt DESC")
-    Page<Resource> searchWithFilters(User uploader, Folder folder, String query, String fileType, Long minSize, Long maxSize, Pageable pageable);
-    
-    // Search files by name (case-insensitive, without pagination)
-    @Query("SELECT r FROM Resource r WHERE r.uploader = :uploader AND LOWER(r.fileName) LIKE LOWER(CONCAT('%', :query, '%'))")
-    List<Resource> searchByUploaderAndFileName(User uploader, String query);
-    
-    // Find file by public link token
+    // Find file by public link token; the public page shows the uploader's name
+    @EntityGraph(attributePaths = "uploader")
     Optional<Resource> findByPublicLinkToken(String token);
     
-    // Find file by uploader and file path
-    Optional<Resource> findByUploaderAndFilePath(User uploader, String filePath);
+    // Storage used by confirmed uploads only (pending upload rows are not counted)
+    @Query("SELECT COALESCE(SUM(r.fileSize), 0) FROM Resource r WHERE r.uploader = :uploader AND r.isDeleted = false " +
+           "AND (r.uploadStatus IS NULL OR r.uploadStatus = 'COMPLETED')")
+    Long getConfirmedStorageUsedByUser(User uploader);
     
-    // Get total storage used by user (excluding deleted)
-    @Query("SELECT COALESCE(SUM(r.fileSize), 0) FROM Resource r WHERE r.uploader = :uploader AND r.isDeleted = false")
-    Long getTotalStorageUsedByUser(User uploader);
+    // PENDING single-PUT uploads that were never confirmed (multipart rows are swept via their upload session)
+    @Query("SELECT r FROM Resource r WHERE r.uploadStatus = 'PENDING' AND r.multipartUploadId IS NULL AND r.uploadedAt < :cutoff")
+    List<Resource> findStalePendingUploads(LocalDateTime cutoff, Pageable pageable);
     
     // Trash/Recycle Bin queries
     @Query("SELECT r FROM Resource r WHERE r.uploader = :uploader AND r.isDeleted = true ORDER BY r.deletedAt DESC")
     Page<Resource> findDeletedFilesByUser(User uploader, Pageable pageable);
-    
-    @Query("SELECT r FROM Resource r WHERE r.uploader = :uploader AND r.isDeleted = true ORDER BY r.deletedAt DESC")
-    List<Resource> findAllDeletedFilesByUser(User uploader);
+
+    @Query("SELECT r.id FROM Resource r WHERE r.uploader = :uploader AND r.isDeleted = true AND r.id > :afterId ORDER BY r.id")
+    List<Long> findTrashedIdsByUploaderAfter(User uploader, Long afterId, Pageable pageable);
+    
+    // Trashed files among the given ids (for restore/purge)
+    @Query("SELECT r FROM Resource r LEFT JOIN FETCH r.folder WHERE r.id IN :fileIds AND r.uploader = :uploader AND r.isDeleted = true")
+    List<Resource> findDeletedByIdsAndUploader(List<Long> fileIds, User uploader);
+    
+    // Confirmed bytes among the given live (or trashed) files; this is the storage delta of trashing (or restoring) them
+    @Query("SELECT COALESCE(SUM(r.fileSize), 0) FROM Resource r WHERE r.id IN :fileIds AND r.uploader = :uploader " +
+           "AND r.isDeleted = :deleted AND (r.uploadStatus IS NULL OR r.uploadStatus = 'COMPLETED')")
+    Long sumConfirmedSizeByIdsAndUploader(List<Long> fileIds, User uploader, boolean deleted);
+    
+    // Single-statement trash/restore flips
+    @Modifying
+    @Query("UPDATE Resource r SET r.isDeleted = true, r.deletedAt = :deletedAt WHERE r.id IN :fileIds AND r.uploader = :uploader AND r.isDeleted = false")
+    int moveToTrash(List<Long> fileIds, User uploader, LocalDateTime deletedAt);
+    
+    @Modifying
+    @Query("UPDATE Resource r SET r.isDeleted = false, r.deletedAt = NULL WHERE r.id IN :fileIds AND r.uploader = :uploader AND r.isDeleted = true")
+    int restoreFromTrash(List<Long> fileIds, User uploader);
+    
+    // Folder-subtree variants of the above (folder ids come from FolderRepository.findSubtreeIds)
+    @Query("SELECT COALESCE(SUM(r.fileSize), 0) FROM Resource r WHERE r.folder.id IN :folderIds AND r.isDeleted = false " +
+           "AND (r.uploadStatus IS NULL OR r.uploadStatus = 'COMPLETED')")
+    Long sumConfirmedSizeInFolders(List<Long> folderIds);
+    
+    @Query("SELECT COALESCE(SUM(r.fileSize), 0) FROM Resource r WHERE r.folder.id IN :folderIds AND r.isDeleted = true " +
+           "AND r.deletedAt = :deletedAt AND (r.uploadStatus IS NULL OR r.uploadStatus = 'COMPLETED')")
+    Long sumConfirmedSizeTrashedInFolders(List<Long> folderIds, LocalDateTime deletedAt);
+    
+    @Query("SELECT COUNT(r) > 0 FROM Resource r WHERE r.folder = :folder AND r.isDeleted = false")
+    boolean existsActiveInFolder(Folder folder);
+    
+    @Modifying
+    @Query("UPDATE Resource r SET r.isDeleted = true, r.deletedAt = :deletedAt WHERE r.folder.id IN :folderIds AND r.isDeleted = false")
+    int moveFolderContentsToTrash(List<Long> folderIds, LocalDateTime deletedAt);
+    
+    @Modifying
+    @Query("UPDATE Resource r SET r.isDeleted = false, r.deletedAt = NULL WHERE r.folder.id IN :folderIds AND r.isDeleted = true AND r.deletedAt = :deletedAt")
+    int restoreFolderContentsFromTrash(List<Long> folderIds, LocalDateTime deletedAt);
+    
+    @Modifying
+    @Query("UPDATE Resource r SET r.folder = NULL WHERE r.folder.id IN :folderIds")
+    int detachFromFolders(List<Long> folderIds);
+    
+    // Trashed files past the retention period, oldest first (background purge)
+    @Query("SELECT r FROM Resource r WHERE r.isDeleted = true AND r.deletedAt < :cutoff ORDER BY r.deletedAt ASC")
+    List<Resource> findTrashedBefore(LocalDateTime cutoff, Pageable pageable);
     
     // Find file by ID and user (including deleted)
     @Query("SELECT r FROM Resource r WHERE r.id = :fileId AND r.uploader = :uploader")
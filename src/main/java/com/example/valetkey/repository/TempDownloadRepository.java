@@ -0,0 +1,17 @@
+package com.example.valetkey.repository;
+
+import com.example.valetkey.model.TempDownload;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TempDownloadRepository extends JpaRepository<TempDownload, Long> {
+
+    @Query("SELECT t FROM TempDownload t WHERE t.expiresAt < :now ORDER BY t.expiresAt ASC")
+    List<TempDownload> findExpired(LocalDateTime now, Pageable pageable);
+}
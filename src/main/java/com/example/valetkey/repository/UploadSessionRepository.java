@@ -0,0 +1,21 @@
+package com.example.valetkey.repository;
+
+import com.example.valetkey.model.UploadSession;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+
+    Optional<UploadSession> findByResourceId(Long resourceId);
+
+    // Active sessions with no part activity since the cutoff (abandoned uploads)
+    @Query("SELECT s FROM UploadSession s WHERE s.status = 'ACTIVE' AND s.lastActivityAt < :cutoff ORDER BY s.lastActivityAt ASC")
+    List<UploadSession> findStaleActiveSessions(LocalDateTime cutoff, Pageable pageable);
+}
@@ -2,6 +2,7 @@ package com.example.valetkey.repository;
 
 import com.example.valetkey.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -24,4 +25,14 @@ public interface UserRepository extends JpaRepository<User, Long>   {
 
     @Query("SELECT COALESCE(SUM(u.storageQuota), 0) FROM User u")
     Long getTotalStorageQuota();
+
+    // Atomic storage adjustment so bulk operations update storage_used with a single statement
+    @Modifying
+    @Query("UPDATE User u SET u.storageUsed = u.storageUsed + :delta WHERE u.id = :userId")
+    int adjustStorageUsed(Long userId, Long delta);
+
+    // Targeted write so a reconciled value never merges other (possibly stale) columns back over the row
+    @Modifying
+    @Query("UPDATE User u SET u.storageUsed = :storageUsed WHERE u.id = :userId")
+    int setStorageUsed(Long userId, Long storageUsed);
 }
@@ -1,57 +1,91 @@
 package com.example.valetkey.service;
 
 import com.example.valetkey.model.User;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class AWSS3Service {
 
     private static final Logger log = LoggerFactory.getLogger(AWSS3Service.class);
 
+    private static final int DELETE_OBJECTS_BATCH_SIZE = 1000;
+
     @Autowired
     private S3Client s3Client;
 
+    @Autowired
+    private S3Presigner s3Presigner;
+
+    @Autowired
+    private SigV4Presigner sigV4Presigner;
+
+    @Autowired
+    private PresignedUrlCache presignedUrlCache;
+
+    @Autowired
+    @Qualifier("s3IoExecutor")
+    private Executor s3IoExecutor;
+
     @Value("${aws.s3.bucket-name:valet-demo}")
     private String bucketName;
 
-    @Value("${aws.s3.region:ap-southeast-1}")
-    private String region;
+    // trust: skip HEAD for keys backed by a confirmed Resource row, cache: TTL-cached HEAD, head: always HEAD
+    @Value("${aws.s3.download.existence-check:trust}")
+    private String existenceCheckMode;
+
+    @Value("${aws.s3.existence-cache.max-entries:10000}")
+    private int existenceCacheMaxEntries;
+
+    @Value("${aws.s3.existence-cache.positive-ttl-seconds:300}")
+    private long existencePositiveTtlSeconds;
 
-    @Value("${aws.s3.access-key:}")
-    private String accessKey;
+    @Value("${aws.s3.existence-cache.negative-ttl-seconds:30}")
+    private long existenceNegativeTtlSeconds;
 
-    @Value("${aws.s3.secret-key:}")
-    private String secretKey;
+    // LRU-bounded; synchronized because an access-ordered map reorders on get
+    private Map<String, ExistenceEntry> existenceCache;
+
+    private record ExistenceEntry(boolean exists, long expiresAtMillis) {
+    }
 
     public String generatePresignedUploadUrl(String objectKey, int expiryMinutes, User user) {
         if (!user.isCreate() && !user.isWrite()) {
             throw new RuntimeException("User does not have permission to upload files");
         }
 
-        try (S3Presigner presigner = createPresigner();
-             S3Client s3 = S3Client.builder()
-                     .region(Region.AP_SOUTHEAST_1)
-                     .build()) {
-
-
+        try {
+            if (sigV4Presigner.isEnabled()) {
+                String url = sigV4Presigner.presignPut(objectKey, Duration.ofMinutes(expiryMinutes));
+                log.info("Generated presigned URL for key: {}", objectKey);
+                return url;
+            }
 
             PutObjectRequest putObjectRequest = PutObjectRequest.builder()
                     .bucket(bucketName)
@@ -64,7 +98,7 @@ public class AWSS3Service {
                     .putObjectRequest(putObjectRequest)
                     .build();
 
-            PresignedPutObjectRequest presignedRequest = presigner.presignPutObject(presignRequest);
+            PresignedPutObjectRequest presignedRequest = s3Presigner.presignPutObject(presignRequest);
 
             log.info("Generated presigned URL for key: {}", objectKey);
             log.debug("URL: {}", presignedRequest.url());
@@ -78,15 +112,31 @@ public class AWSS3Service {
     }
 
     public String generatePresignedDownloadUrl(String objectKey, int expiryMinutes, User user) {
+        return generatePresignedDownloadUrl(objectKey, expiryMinutes, user, false);
+    }
+
+    public String generatePresignedDownloadUrl(String objectKey, int expiryMinutes, User user, boolean knownToExist) {
         if (!user.isRead()) {
             throw new RuntimeException("User does not have permission to download files");
         }
 
-        if (!objectExists(objectKey)) {
+        String cachedUrl = presignedUrlCache.get(objectKey, expiryMinutes);
+        if (cachedUrl != null) {
+            return cachedUrl;
+        }
+
+        boolean skipCheck = knownToExist && "trust".equalsIgnoreCase(existenceCheckMode);
+        if (!skipCheck && !objectExistsForDownload(objectKey)) {
             throw new RuntimeException("File not found: " + objectKey);
         }
 
-        try (S3Presigner presigner = createPresigner()) {
+        try {
+            if (sigV4Presigner.isEnabled()) {
+                String url = sigV4Presigner.presignGet(objectKey, Duration.ofMinutes(expiryMinutes));
+                presignedUrlCache.put(objectKey, expiryMinutes, url);
+                return url;
+            }
+
             GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                     .bucket(bucketName)
                     .key(objectKey)
@@ -97,14 +147,113 @@ public class AWSS3Service {
                     .getObjectRequest(getObjectRequest)
                     .build();
 
-            var presignedRequest = presigner.presignGetObject(presignRequest);
-            return presignedRequest.url().toString();
+            var presignedRequest = s3Presigner.presignGetObject(presignRequest);
+            String url = presignedRequest.url().toString();
+            presignedUrlCache.put(objectKey, expiryMinutes, url);
+            return url;
         } catch (Exception e) {
             log.error("Error generating presigned download URL for key: {}", objectKey, e);
             throw new RuntimeException("Failed to generate download URL: " + e.getMessage(), e);
         }
     }
 
+    public String createMultipartUpload(String objectKey, String contentType) {
+        try {
+            CreateMultipartUploadResponse response = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .contentType(contentType)
+                    .build());
+            log.info("Initiated multipart upload for key: {}, uploadId: {}", objectKey, response.uploadId());
+            return response.uploadId();
+        } catch (Exception e) {
+            log.error("Error initiating multipart upload for key: {}", objectKey, e);
+            throw new RuntimeException("Failed to initiate multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    public Map<Integer, String> generatePresignedUploadPartUrls(String objectKey, String uploadId,
+                                                                 List<Integer> partNumbers, int expiryMinutes, User user) {
+        if (!user.isCreate() && !user.isWrite()) {
+            throw new RuntimeException("User does not have permission to upload files");
+        }
+
+        try {
+            Map<Integer, String> urls = new LinkedHashMap<>();
+            for (Integer partNumber : partNumbers) {
+                UploadPartPresignRequest presignRequest = UploadPartPresignRequest.builder()
+                        .signatureDuration(Duration.ofMinutes(expiryMinutes))
+                        .uploadPartRequest(UploadPartRequest.builder()
+                                .bucket(bucketName)
+                                .key(objectKey)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .build())
+                        .build();
+                urls.put(partNumber, s3Presigner.presignUploadPart(presignRequest).url().toString());
+            }
+            return urls;
+        } catch (Exception e) {
+            log.error("Error generating presigned part URLs for key: {}", objectKey, e);
+            throw new RuntimeException("Failed to generate part upload URLs: " + e.getMessage(), e);
+        }
+    }
+
+    public List<Part> listParts(String objectKey, String uploadId) {
+        try {
+            List<Part> parts = new ArrayList<>();
+            Integer marker = null;
+            while (true) {
+                ListPartsResponse response = s3Client.listParts(ListPartsRequest.builder()
+                        .bucket(bucketName)
+                        .key(objectKey)
+                        .uploadId(uploadId)
+                        .partNumberMarker(marker)
+                        .build());
+                parts.addAll(response.parts());
+                if (!Boolean.TRUE.equals(response.isTruncated())) {
+                    return parts;
+                }
+                marker = response.nextPartNumberMarker();
+            }
+        } catch (Exception e) {
+            log.error("Error listing parts for key: {}, uploadId: {}", objectKey, uploadId, e);
+            throw new RuntimeException("Failed to list uploaded parts: " + e.getMessage(), e);
+        }
+    }
+
+    public void completeMultipartUpload(String objectKey, String uploadId, List<CompletedPart> parts) {
+        try {
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+            rememberExistence(objectKey, true);
+            log.info("Completed multipart upload for key: {} ({} parts)", objectKey, parts.size());
+        } catch (Exception e) {
+            log.error("Error completing multipart upload for key: {}", objectKey, e);
+            throw new RuntimeException("Failed to complete multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    public void abortMultipartUpload(String objectKey, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(objectKey)
+                    .uploadId(uploadId)
+                    .build());
+            log.info("Aborted multipart upload for key: {}, uploadId: {}", objectKey, uploadId);
+        } catch (NoSuchUploadException e) {
+            log.debug("Multipart upload already gone for key: {}, uploadId: {}", objectKey, uploadId);
+        } catch (Exception e) {
+            log.error("Error aborting multipart upload for key: {}", objectKey, e);
+            throw new RuntimeException("Failed to abort multipart upload: " + e.getMessage(), e);
+        }
+    }
+
     public void deleteObject(String objectKey) {
         try {
             DeleteObjectRequest deleteRequest = DeleteObjectRequest.builder()
@@ -113,6 +262,8 @@ public class AWSS3Service {
                     .build();
 
             s3Client.deleteObject(deleteRequest);
+            existenceCache.remove(objectKey);
+            presignedUrlCache.evict(objectKey);
             log.debug("Deleted object from S3: {}", objectKey);
         } catch (Exception e) {
             log.error("Error deleting object from S3: {}", objectKey, e);
@@ -120,7 +271,69 @@ public class AWSS3Service {
         }
     }
 
+    /**
+     * Deletes the keys with DeleteObjects, up to 1,000 keys per request (the S3 limit), sending
+     * the chunks concurrently on the S3 I/O pool. Returns the keys that could not be deleted,
+     * mapped to the error S3 reported.
+     */
+    public Map<String, String> deleteObjects(List<String> objectKeys) {
+        List<CompletableFuture<Map<String, String>>> chunks = new ArrayList<>();
+        for (int start = 0; start < objectKeys.size(); start += DELETE_OBJECTS_BATCH_SIZE) {
+            List<String> chunk = List.copyOf(
+                objectKeys.subList(start, Math.min(start + DELETE_OBJECTS_BATCH_SIZE, objectKeys.size())));
+            chunks.add(CompletableFuture.supplyAsync(() -> deleteObjectsChunk(chunk), s3IoExecutor));
+        }
+
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (CompletableFuture<Map<String, String>> chunk : chunks) {
+            failed.putAll(chunk.join());
+        }
+        return failed;
+    }
+
+    private Map<String, String> deleteObjectsChunk(List<String> objectKeys) {
+        Map<String, String> failed = new LinkedHashMap<>();
+        try {
+            List<ObjectIdentifier> identifiers = objectKeys.stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+
+            DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder().objects(identifiers).quiet(true).build())
+                    .build());
+
+            for (S3Error error : response.errors()) {
+                failed.put(error.key(), error.code() + ": " + error.message());
+            }
+        } catch (Exception e) {
+            log.error("Error deleting {} objects from S3", objectKeys.size(), e);
+            for (String objectKey : objectKeys) {
+                failed.put(objectKey, e.getMessage());
+            }
+        }
+
+        for (String objectKey : objectKeys) {
+            if (!failed.containsKey(objectKey)) {
+                existenceCache.remove(objectKey);
+                presignedUrlCache.evict(objectKey);
+            }
+        }
+        log.debug("Deleted {} of {} objects from S3", objectKeys.size() - failed.size(), objectKeys.size());
+        return failed;
+    }
+
+    @PostConstruct
+    void initExistenceCache() {
+        existenceCache = Collections.synchronizedMap(new BoundedLruMap<>(existenceCacheMaxEntries));
+    }
+
     public boolean objectExists(String objectKey) {
+        return Boolean.TRUE.equals(headObject(objectKey));
+    }
+
+    // true/false from S3, null when the HEAD failed for another reason (not cacheable)
+    private Boolean headObject(String objectKey) {
         try {
             HeadObjectRequest headRequest = HeadObjectRequest.builder()
                     .bucket(bucketName)
@@ -131,10 +344,59 @@ public class AWSS3Service {
             return true;
         } catch (NoSuchKeyException e) {
             return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            log.error("Error checking object existence: {}", objectKey, e);
+            return null;
         } catch (Exception e) {
             log.error("Error checking object existence: {}", objectKey, e);
+            return null;
+        }
+    }
+
+    // Issues the HEAD requests concurrently on the S3 I/O pool
+    public Map<String, Boolean> objectsExist(Collection<String> objectKeys) {
+        Map<String, CompletableFuture<Boolean>> futures = new HashMap<>();
+        for (String objectKey : objectKeys) {
+            futures.put(objectKey, CompletableFuture.supplyAsync(() -> headObject(objectKey), s3IoExecutor));
+        }
+
+        Map<String, Boolean> result = new HashMap<>();
+        futures.forEach((objectKey, future) -> {
+            Boolean exists = future.join();
+            result.put(objectKey, Boolean.TRUE.equals(exists));
+            if (exists != null) {
+                rememberExistence(objectKey, exists);
+            }
+        });
+        return result;
+    }
+
+    private boolean objectExistsForDownload(String objectKey) {
+        if ("head".equalsIgnoreCase(existenceCheckMode)) {
+            return objectExists(objectKey);
+        }
+
+        long now = System.currentTimeMillis();
+        ExistenceEntry cached = existenceCache.get(objectKey);
+        if (cached != null && cached.expiresAtMillis() > now) {
+            return cached.exists();
+        }
+
+        Boolean exists = headObject(objectKey);
+        if (exists == null) {
             return false;
         }
+        rememberExistence(objectKey, exists);
+        return exists;
+    }
+
+    private void rememberExistence(String objectKey, boolean exists) {
+        long now = System.currentTimeMillis();
+        long ttlMillis = (exists ? existencePositiveTtlSeconds : existenceNegativeTtlSeconds) * 1000L;
+        existenceCache.put(objectKey, new ExistenceEntry(exists, now + ttlMillis));
     }
 
     public List<String> listObjects(String prefix) {
@@ -193,6 +455,7 @@ public class AWSS3Service {
 
             s3Client.putObject(putRequest, software.amazon.awssdk.core.sync.RequestBody.fromInputStream(
                     new ByteArrayInputStream(data), data.length));
+            rememberExistence(objectKey, true);
             
             log.debug("Uploaded object to S3: {}", objectKey);
         } catch (Exception e) {
@@ -210,26 +473,11 @@ public class AWSS3Service {
                     .build();
 
             s3Client.putObject(putRequest, sourcePath);
+            rememberExistence(objectKey, true);
             log.debug("Uploaded object from path to S3: {}", objectKey);
         } catch (Exception e) {
             log.error("Error uploading object from path to S3: {}", objectKey, e);
             throw new RuntimeException("Failed to upload object: " + e.getMessage(), e);
         }
     }
-
-    private S3Presigner createPresigner() {
-        if (accessKey != null && !accessKey.isEmpty() && secretKey != null && !secretKey.isEmpty()) {
-            software.amazon.awssdk.auth.credentials.AwsBasicCredentials awsCreds =
-                    software.amazon.awssdk.auth.credentials.AwsBasicCredentials.create(accessKey, secretKey);
-            return S3Presigner.builder()
-                    .region(software.amazon.awssdk.regions.Region.of(region))
-                    .credentialsProvider(software.amazon.awssdk.auth.credentials.StaticCredentialsProvider.create(awsCreds))
-                    .build();
-        } else {
-            return S3Presigner.builder()
-                    .region(software.amazon.awssdk.regions.Region.of(region))
-                    .build();
-        }
-    }
 }
-
@@ -0,0 +1,20 @@
+package com.example.valetkey.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Access-ordered map that drops its least recently used entry past maxEntries; callers synchronize
+class BoundedLruMap<K, V> extends LinkedHashMap<K, V> {
+
+    private final int maxEntries;
+
+    BoundedLruMap(int maxEntries) {
+        super(16, 0.75f, true);
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > maxEntries;
+    }
+}
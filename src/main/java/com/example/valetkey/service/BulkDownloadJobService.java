@@ -0,0 +1,250 @@
+package com.example.valetkey.service;
+
+import com.example.valetkey.model.BulkDownloadJob;
+import com.example.valetkey.model.Resource;
+import com.example.valetkey.model.User;
+import com.example.valetkey.repository.BulkDownloadJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Builds bulk-download ZIPs in the background. Submitting returns a job id immediately; the
+ * archive is assembled on the bulkZipExecutor, uploaded to temp-downloads/ and kept for
+ * bulk-download.job.retention-minutes, during which the same selection reuses it.
+ * Jobs heartbeat while they run on this instance; one whose heartbeat is older than
+ * bulk-download.job.stale-after-minutes (its instance stopped or crashed) is never reused and is
+ * marked FAILED by the sweep.
+ */
+@Service
+public class BulkDownloadJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkDownloadJobService.class);
+
+    @Autowired
+    private BulkDownloadJobRepository bulkDownloadJobRepository;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private BulkZipWriter bulkZipWriter;
+
+    @Autowired
+    private AWSS3Service awsS3Service;
+
+    @Autowired
+    private TempDownloadService tempDownloadService;
+
+    @Autowired
+    @Qualifier("bulkZipExecutor")
+    private Executor bulkZipExecutor;
+
+    @Value("${bulk-download.job.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${bulk-download.job.url-expiry-minutes:30}")
+    private int urlExpiryMinutes;
+
+    @Value("${bulk-download.job.progress-flush-ms:2000}")
+    private long progressFlushMillis;
+
+    @Value("${bulk-download.job.stale-after-minutes:10}")
+    private long staleAfterMinutes;
+
+    // Live counters for jobs running on this instance; the row is only updated every progress-flush-ms
+    private final Map<String, JobProgress> runningJobs = new ConcurrentHashMap<>();
+
+    private static class JobProgress {
+        final AtomicInteger filesProcessed = new AtomicInteger();
+        final AtomicLong bytesProcessed = new AtomicLong();
+        volatile long lastFlushMillis = System.currentTimeMillis();
+    }
+
+    public BulkDownloadJob submitJob(List<Long> fileIds, User user) {
+        List<Resource> resources = fileService.getFilesForBulkDownload(fileIds, user);
+        String fileSetHash = fileSetHash(resources);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BulkDownloadJob> reusable = bulkDownloadJobRepository.findReusableJobs(
+            user.getId(), fileSetHash, now, now.minusMinutes(staleAfterMinutes), PageRequest.of(0, 1));
+        if (!reusable.isEmpty()) {
+            BulkDownloadJob existing = reusable.get(0);
+            log.info("Reusing bulk download job {} ({}) for user: {}", existing.getId(), existing.getStatus(), user.getUsername());
+            return existing;
+        }
+
+        long totalBytes = resources.stream()
+            .mapToLong(r -> r.getFileSize() != null ? r.getFileSize() : 0L)
+            .sum();
+        // Registered before the insert so the sweep already counts the job as running on this instance
+        String jobId = UUID.randomUUID().toString();
+        JobProgress progress = new JobProgress();
+        runningJobs.put(jobId, progress);
+        BulkDownloadJob job;
+        try {
+            job = bulkDownloadJobRepository.save(new BulkDownloadJob(
+                jobId, user.getId(), fileSetHash, resources.size(), totalBytes));
+        } catch (RuntimeException e) {
+            runningJobs.remove(jobId);
+            throw e;
+        }
+
+        try {
+            bulkZipExecutor.execute(() -> runJob(job, resources, progress));
+        } catch (RejectedExecutionException e) {
+            runningJobs.remove(job.getId());
+            job.setStatus("FAILED");
+            job.setErrorMessage("Too many bulk download jobs in progress");
+            bulkDownloadJobRepository.save(job);
+            throw new RuntimeException("Too many bulk download jobs in progress, please try again later");
+        }
+
+        log.info("Submitted bulk download job {} with {} files for user: {}", job.getId(), resources.size(), user.getUsername());
+        return job;
+    }
+
+    public Map<String, Object> getJobStatus(String jobId, User user) {
+        BulkDownloadJob job = bulkDownloadJobRepository.findByIdAndUserId(jobId, user.getId())
+            .orElseThrow(() -> new RuntimeException("Bulk download job not found"));
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", job.getId());
+        status.put("status", job.getStatus());
+        status.put("totalFiles", job.getTotalFiles());
+        status.put("totalBytes", job.getTotalBytes());
+
+        JobProgress progress = runningJobs.get(job.getId());
+        if (progress != null) {
+            status.put("filesProcessed", progress.filesProcessed.get());
+            status.put("bytesProcessed", progress.bytesProcessed.get());
+        } else {
+            status.put("filesProcessed", job.getFilesProcessed());
+            status.put("bytesProcessed", job.getBytesProcessed());
+        }
+        status.put("createdAt", job.getCreatedAt());
+
+        if ("COMPLETED".equals(job.getStatus())) {
+            long minutesLeft = Duration.between(LocalDateTime.now(), job.getExpiresAt()).toMinutes();
+            if (minutesLeft < 1) {
+                status.put("status", "EXPIRED");
+            } else {
+                int expiryMinutes = (int) Math.min(urlExpiryMinutes, minutesLeft);
+                status.put("downloadUrl", awsS3Service.generatePresignedDownloadUrl(job.getObjectKey(), expiryMinutes, user, true));
+                status.put("expiresInMinutes", expiryMinutes);
+                status.put("archiveSize", job.getArchiveSize());
+                status.put("completedAt", job.getCompletedAt());
+            }
+        } else if ("FAILED".equals(job.getStatus())) {
+            status.put("message", job.getErrorMessage());
+        }
+        return status;
+    }
+
+    // Keeps this instance's jobs alive (a single large entry or the final upload can outlast progress
+    // flushes), then fails PENDING/RUNNING jobs no instance has touched within stale-after-minutes
+    @Scheduled(fixedDelayString = "${bulk-download.job.sweep-interval-ms:60000}",
+               initialDelayString = "${bulk-download.job.sweep-initial-delay-ms:60000}")
+    public void sweepStaleJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!runningJobs.isEmpty()) {
+            bulkDownloadJobRepository.touchHeartbeats(new ArrayList<>(runningJobs.keySet()), now);
+        }
+        int failed = bulkDownloadJobRepository.failStaleJobs(now.minusMinutes(staleAfterMinutes),
+            "Bulk download job was interrupted, please try again");
+        if (failed > 0) {
+            log.warn("Marked {} orphaned bulk download jobs as failed", failed);
+        }
+    }
+
+    private void runJob(BulkDownloadJob job, List<Resource> resources, JobProgress progress) {
+        Path tempZip = null;
+        try {
+            job.setStatus("RUNNING");
+            job.setHeartbeatAt(LocalDateTime.now());
+            bulkDownloadJobRepository.save(job);
+
+            tempZip = Files.createTempFile("bulk-job-", ".zip");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempZip))) {
+                bulkZipWriter.write(resources, out, (resource, bytes) -> {
+                    int files = progress.filesProcessed.incrementAndGet();
+                    long total = progress.bytesProcessed.addAndGet(bytes);
+                    long now = System.currentTimeMillis();
+                    if (now - progress.lastFlushMillis >= progressFlushMillis) {
+                        progress.lastFlushMillis = now;
+                        bulkDownloadJobRepository.updateProgress(job.getId(), files, total, LocalDateTime.now());
+                    }
+                });
+            }
+
+            String zipObjectKey = "temp-downloads/user-" + job.getUserId() + "/bulk-" + job.getId() + ".zip";
+            awsS3Service.uploadObject(zipObjectKey, tempZip, "application/zip");
+
+            job.setObjectKey(zipObjectKey);
+            job.setArchiveSize(Files.size(tempZip));
+            job.setFilesProcessed(progress.filesProcessed.get());
+            job.setBytesProcessed(progress.bytesProcessed.get());
+            job.setStatus("COMPLETED");
+            job.setCompletedAt(LocalDateTime.now());
+            job.setExpiresAt(LocalDateTime.now().plusMinutes(retentionMinutes));
+            bulkDownloadJobRepository.save(job);
+            tempDownloadService.register(zipObjectKey, job.getUserId(), job.getArchiveSize(), job.getExpiresAt());
+
+            log.info("Bulk download job {} completed: {} files, {} bytes", job.getId(),
+                job.getFilesProcessed(), job.getArchiveSize());
+        } catch (Exception e) {
+            log.error("Bulk download job {} failed", job.getId(), e);
+            job.setFilesProcessed(progress.filesProcessed.get());
+            job.setBytesProcessed(progress.bytesProcessed.get());
+            job.setStatus("FAILED");
+            job.setErrorMessage("Failed to create ZIP file: " + e.getMessage());
+            bulkDownloadJobRepository.save(job);
+        } finally {
+            runningJobs.remove(job.getId());
+            if (tempZip != null) {
+                try {
+                    Files.deleteIfExists(tempZip);
+                } catch (IOException ex) {
+                    log.warn("Failed to delete temp zip file {}", tempZip, ex);
+                }
+            }
+        }
+    }
+
+    private String fileSetHash(List<Resource> resources) {
+        String ids = resources.stream()
+            .map(Resource::getId)
+            .sorted()
+            .map(String::valueOf)
+            .collect(Collectors.joining(","));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(ids.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.valetkey.service;
+
+import com.example.valetkey.model.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Assembles bulk-download ZIPs from S3 objects.
+ *
+ * While one entry is being written, the next files (up to bulk-download.prefetch.depth) are
+ * fetched concurrently into memory on the S3 I/O pool, so many small files cost roughly the
+ * bandwidth limit instead of the sum of GET latencies. Prefetch buffers draw from a byte budget
+ * shared by all running downloads (bulk-download.prefetch.memory-ceiling-bytes); files larger
+ * than bulk-download.prefetch.max-file-bytes, or that do not fit the budget, are streamed directly.
+ * A buffer never grows past the size it reserved: an object larger than its recorded fileSize is
+ * streamed directly instead, and reserved bytes return to the budget only once the fetch task has
+ * finished and the entry is written or abandoned.
+ */
+@Service
+public class BulkZipWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkZipWriter.class);
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+        ".zip", ".gz", ".tgz", ".bz2", ".xz", ".7z", ".rar", ".jpg", ".jpeg", ".png", ".gif", ".webp",
+        ".mp3", ".mp4", ".m4a", ".mov", ".avi", ".mkv", ".webm", ".docx", ".xlsx", ".pptx", ".pdf");
+
+    @Autowired
+    private AWSS3Service awsS3Service;
+
+    @Autowired
+    @Qualifier("s3IoExecutor")
+    private Executor s3IoExecutor;
+
+    @Value("${bulk-download.prefetch.depth:8}")
+    private int prefetchDepth;
+
+    @Value("${bulk-download.prefetch.max-file-bytes:16777216}")
+    private long maxPrefetchFileBytes;
+
+    private final Semaphore prefetchBudget;
+
+    public BulkZipWriter(@Value("${bulk-download.prefetch.memory-ceiling-bytes:268435456}") long memoryCeilingBytes) {
+        this.prefetchBudget = new Semaphore((int) Math.min(memoryCeilingBytes, Integer.MAX_VALUE));
+    }
+
+    // Called once per input file, after its entry is written (bytes is 0 when the file was skipped)
+    public interface ProgressListener {
+        void entryWritten(Resource resource, long bytes);
+    }
+
+    // data completes with null when the object outgrew its reservation; lease is null for direct entries
+    private record Prefetch(Resource resource, CompletableFuture<byte[]> data, Lease lease) {
+    }
+
+    // Reserved prefetch bytes, returned once both the fetch task and the writer have let go of them
+    private final class Lease {
+        private final int bytes;
+        private final AtomicInteger holders = new AtomicInteger(2);
+
+        private Lease(int bytes) {
+            this.bytes = bytes;
+        }
+
+        void release() {
+            if (holders.decrementAndGet() == 0) {
+                prefetchBudget.release(bytes);
+            }
+        }
+    }
+
+    public void write(List<Resource> resources, OutputStream out) throws IOException {
+        write(resources, out, null);
+    }
+
+    public void write(List<Resource> resources, OutputStream out, ProgressListener listener) throws IOException {
+        ZipOutputStream zos = new ZipOutputStream(out);
+        Set<String> usedNames = new HashSet<>();
+        Deque<Prefetch> inFlight = new ArrayDeque<>();
+        int next = 0;
+
+        try {
+            next = fill(resources, next, inFlight);
+            while (!inFlight.isEmpty()) {
+                Prefetch current = inFlight.pollFirst();
+                long written;
+                try {
+                    written = writeEntry(zos, current, usedNames);
+                } finally {
+                    if (current.lease() != null) {
+                        current.lease().release();
+                    }
+                }
+                if (listener != null) {
+                    listener.entryWritten(current.resource(), written);
+                }
+                next = fill(resources, next, inFlight);
+            }
+            zos.finish();
+            zos.flush();
+        } finally {
+            // Client disconnect or broken stream: drop outstanding prefetches. Cancelling does not stop a
+            // read already in progress, so each fetch task hands back its budget itself when it finishes
+            for (Prefetch pending : inFlight) {
+                if (pending.data() != null) {
+                    pending.data().cancel(false);
+                    pending.lease().release();
+                }
+            }
+        }
+    }
+
+    private int fill(List<Resource> resources, int next, Deque<Prefetch> inFlight) {
+        while (inFlight.size() < prefetchDepth && next < resources.size()) {
+            Resource resource = resources.get(next);
+            long size = resource.getFileSize() != null ? resource.getFileSize() : Long.MAX_VALUE;
+
+            if (size <= maxPrefetchFileBytes && prefetchBudget.tryAcquire((int) size)) {
+                Lease lease = new Lease((int) size);
+                inFlight.addLast(new Prefetch(resource, prefetch(resource.getFilePath(), lease), lease));
+            } else if (inFlight.isEmpty() || size > maxPrefetchFileBytes) {
+                // Too large to buffer (or budget exhausted with nothing queued): stream it when reached
+                inFlight.addLast(new Prefetch(resource, null, null));
+            } else {
+                // Budget exhausted: wait for queued entries to drain before prefetching more
+                break;
+            }
+            next++;
+        }
+        return next;
+    }
+
+    private CompletableFuture<byte[]> prefetch(String objectKey, Lease lease) {
+        CompletableFuture<byte[]> data = new CompletableFuture<>();
+        Runnable fetch = () -> {
+            try {
+                if (data.isCancelled()) {
+                    return;
+                }
+                try (InputStream in = awsS3Service.getObjectInputStream(objectKey)) {
+                    // fileSize is client-declared; read one byte past the reservation to detect a larger object
+                    byte[] bytes = in.readNBytes((int) Math.min((long) lease.bytes + 1, Integer.MAX_VALUE));
+                    data.complete(bytes.length > lease.bytes ? null : bytes);
+                }
+            } catch (Exception e) {
+                data.completeExceptionally(new RuntimeException("Failed to read file: " + e.getMessage(), e));
+            } finally {
+                lease.release();
+            }
+        };
+        try {
+            s3IoExecutor.execute(fetch);
+        } catch (RuntimeException e) {
+            data.completeExceptionally(e);
+            lease.release();
+        }
+        return data;
+    }
+
+    private long writeEntry(ZipOutputStream zos, Prefetch entry, Set<String> usedNames) throws IOException {
+        Resource resource = entry.resource();
+        String entryName = uniqueEntryName(
+            resource.getFileName() != null ? resource.getFileName() : resource.getId() + ".bin", usedNames);
+
+        byte[] data = null;
+        InputStream direct = null;
+        try {
+            if (entry.data() != null) {
+                data = entry.data().join();
+                if (data == null) {
+                    log.warn("File {} is larger than its recorded size, streaming it directly", resource.getFileName());
+                }
+            }
+            if (data == null) {
+                direct = awsS3Service.getObjectInputStream(resource.getFilePath());
+            }
+        } catch (Exception e) {
+            log.error("Error adding file {} to ZIP: {}", resource.getFileName(), e.getMessage());
+            return 0;
+        }
+
+        zos.setLevel(isCompressedContent(resource) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+        zos.putNextEntry(new ZipEntry(entryName));
+        long written;
+        if (data != null) {
+            zos.write(data);
+            written = data.length;
+        } else {
+            try (InputStream in = direct) {
+                written = in.transferTo(zos);
+            }
+        }
+        zos.closeEntry();
+        return written;
+    }
+
+    private String uniqueEntryName(String name, Set<String> usedNames) {
+        if (usedNames.add(name)) {
+            return name;
+        }
+        int lastDotIndex = name.lastIndexOf('.');
+        String base = lastDotIndex > 0 ? name.substring(0, lastDotIndex) : name;
+        String extension = lastDotIndex > 0 ? name.substring(lastDotIndex) : "";
+        int counter = 1;
+        String candidate;
+        do {
+            candidate = base + " (" + counter++ + ")" + extension;
+        } while (!usedNames.add(candidate));
+        return candidate;
+    }
+
+    private boolean isCompressedContent(Resource resource) {
+        String contentType = resource.getContentType();
+        if (contentType != null) {
+            String type = contentType.toLowerCase();
+            if (type.startsWith("image/") && !type.contains("svg") && !type.contains("bmp")) return true;
+            if (type.startsWith("video/") || type.startsWith("audio/")) return true;
+            if (type.contains("zip") || type.contains("compressed") || type.contains("gzip")
+                || type.contains("x-7z") || type.contains("x-rar") || type.equals("application/pdf")) return true;
+        }
+        String name = resource.getFileName();
+        if (name != null && name.lastIndexOf('.') >= 0) {
+            return COMPRESSED_EXTENSIONS.contains(name.substring(name.lastIndexOf('.')).toLowerCase());
+        }
+        return false;
+    }
+}
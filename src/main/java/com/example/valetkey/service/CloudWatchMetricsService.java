@@ -11,6 +11,7 @@ import software.amazon.awssdk.services.cloudwatch.model.*;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class CloudWatchMetricsService {
@@ -130,5 +131,42 @@ public class CloudWatchMetricsService {
             log.error("Failed to record custom metric {}: {}", metricName, e.getMessage());
         }
     }
-}
 
+    // Collapses per-file BackupSuccess datapoints into one StatisticSet per status and a single put
+    public void recordBackupResults(Map<String, Integer> countsByStatus) {
+        try {
+            List<MetricDatum> data = new ArrayList<>();
+            Instant now = Instant.now();
+            for (Map.Entry<String, Integer> entry : countsByStatus.entrySet()) {
+                int count = entry.getValue();
+                if (count <= 0) {
+                    continue;
+                }
+                double value = "COMPLETED".equals(entry.getKey()) ? 1.0 : 0.0;
+                data.add(MetricDatum.builder()
+                        .metricName("BackupSuccess")
+                        .statisticValues(StatisticSet.builder()
+                                .sampleCount((double) count)
+                                .sum(value * count)
+                                .minimum(value)
+                                .maximum(value)
+                                .build())
+                        .unit(StandardUnit.NONE)
+                        .timestamp(now)
+                        .dimensions(Dimension.builder().name("Status").value(entry.getKey()).build())
+                        .build());
+            }
+            if (data.isEmpty()) {
+                return;
+            }
+
+            cloudWatchClient.putMetricData(PutMetricDataRequest.builder()
+                    .namespace(namespace)
+                    .metricData(data)
+                    .build());
+            log.info("Recorded aggregated backup results: {}", countsByStatus);
+        } catch (Exception e) {
+            log.error("Failed to record aggregated backup result metrics: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.valetkey.service;
+
+import com.example.valetkey.model.FileSummary;
+import com.example.valetkey.model.NameNormalizer;
+import com.example.valetkey.model.Resource;
+import com.example.valetkey.model.User;
+import com.example.valetkey.repository.ResourceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Trigram inverted index over file names (file_name_tokens), replacing LIKE '%q%' scans.
+ *
+ * A search looks up the query's trigrams in the user's slice of the index, keeps files that have
+ * all of them, verifies the substring on the normalized name and ranks exact, prefix and
+ * word-prefix matches ahead of other substring matches (newest first within a rank). Queries
+ * shorter than a trigram fall back to the (uploader_id, normalized_name) index.
+ * The index is maintained on insert, rename and permanent delete; trashing keeps the tokens so a
+ * restore needs no reindexing (searches filter out trashed rows).
+ */
+@Service
+public class FileNameIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileNameIndexService.class);
+
+    private static final int GRAM_SIZE = 3;
+
+    // Any subset of a query's trigrams still yields a superset of the matches; the LIKE check is exact
+    private static final int MAX_QUERY_TOKENS = 12;
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_TOKEN_SQL =
+        "INSERT INTO file_name_tokens (resource_id, uploader_id, token) VALUES (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private ResourceRepository resourceRepository;
+
+    public record IndexEntry(Long resourceId, Long uploaderId, String fileName) {
+    }
+
+    public static Set<String> tokens(String normalizedName) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (normalizedName == null) {
+            return tokens;
+        }
+        for (int i = 0; i + GRAM_SIZE <= normalizedName.length(); i++) {
+            tokens.add(normalizedName.substring(i, i + GRAM_SIZE));
+        }
+        return tokens;
+    }
+
+    public void index(Resource resource) {
+        index(List.of(new IndexEntry(resource.getId(), resource.getUploader().getId(), resource.getFileName())));
+    }
+
+    public void index(List<IndexEntry> entries) {
+        List<Object[]> rows = new ArrayList<>();
+        for (IndexEntry entry : entries) {
+            for (String token : tokens(NameNormalizer.normalize(entry.fileName()))) {
+                rows.add(new Object[] {entry.resourceId(), entry.uploaderId(), token});
+            }
+        }
+        for (int start = 0; start < rows.size(); start += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(INSERT_TOKEN_SQL, rows.subList(start, Math.min(start + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    public void reindex(Resource resource) {
+        remove(List.of(resource.getId()));
+        index(resource);
+    }
+
+    public void remove(Collection<Long> resourceIds) {
+        List<Long> ids = new ArrayList<>(resourceIds);
+        for (int start = 0; start < ids.size(); start += BATCH_SIZE) {
+            namedParameterJdbcTemplate.update("DELETE FROM file_name_tokens WHERE resource_id IN (:ids)",
+                new MapSqlParameterSource("ids", ids.subList(start, Math.min(start + BATCH_SIZE, ids.size()))));
+        }
+    }
+
+    /**
+     * Ranked, paginated search over the user's live files. folderId, fileType (content type
+     * prefix), minSize and maxSize are optional filters.
+     */
+    public Page<FileSummary> search(User user, String query, Long folderId, String fileType,
+                                 Long minSize, Long maxSize, int page, int size) {
+        String normalized = NameNormalizer.normalize(query);
+        if (normalized == null || normalized.isEmpty()) {
+            throw new RuntimeException("Search query is required");
+        }
+        String escaped = NameNormalizer.escapeLike(normalized);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("uploaderId", user.getId())
+            .addValue("exact", normalized)
+            .addValue("prefix", escaped + "%")
+            .addValue("wordPrefix", "% " + escaped + "%")
+            .addValue("contains", "%" + escaped + "%");
+
+        StringBuilder from = new StringBuilder(" FROM resources r");
+        List<String> queryTokens = tokens(normalized).stream().limit(MAX_QUERY_TOKENS).toList();
+        if (!queryTokens.isEmpty()) {
+            from.append(" JOIN (SELECT t.resource_id FROM file_name_tokens t")
+                .append(" WHERE t.uploader_id = :uploaderId AND t.token IN (:tokens)")
+                .append(" GROUP BY t.resource_id HAVING COUNT(DISTINCT t.token) = :tokenCount) m")
+                .append(" ON m.resource_id = r.id");
+            params.addValue("tokens", queryTokens).addValue("tokenCount", queryTokens.size());
+        }
+
+        StringBuilder where = new StringBuilder(" WHERE r.uploader_id = :uploaderId AND r.is_deleted = false")
+            .append(" AND r.normalized_name LIKE :contains ESCAPE '!'");
+        if (folderId != null) {
+            where.append(" AND r.folder_id = :folderId");
+            params.addValue("folderId", folderId);
+        }
+        if (fileType != null && !fileType.isEmpty()) {
+            where.append(" AND r.content_type LIKE :fileType");
+            params.addValue("fileType", fileType + "%");
+        }
+        if (minSize != null) {
+            where.append(" AND r.file_size >= :minSize");
+            params.addValue("minSize", minSize);
+        }
+        if (maxSize != null) {
+            where.append(" AND r.file_size <= :maxSize");
+            params.addValue("maxSize", maxSize);
+        }
+
+        Long total = namedParameterJdbcTemplate.queryForObject("SELECT COUNT(*)" + from + where, params, Long.class);
+
+        params.addValue("limit", size).addValue("offset", (long) page * size);
+        List<Long> ids = namedParameterJdbcTemplate.queryForList(
+            "SELECT r.id" + from + where +
+            " ORDER BY CASE WHEN r.normalized_name = :exact THEN 0" +
+            " WHEN r.normalized_name LIKE :prefix ESCAPE '!' THEN 1" +
+            " WHEN r.normalized_name LIKE :wordPrefix ESCAPE '!' THEN 2 ELSE 3 END," +
+            " r.uploaded_at DESC, r.id DESC LIMIT :limit OFFSET :offset",
+            params, Long.class);
+
+        Map<Long, FileSummary> byId = ids.isEmpty() ? Map.of() : resourceRepository.findSummariesByIds(ids).stream()
+            .collect(Collectors.toMap(FileSummary::id, Function.identity()));
+        List<FileSummary> content = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+
+        return new PageImpl<>(content, PageRequest.of(page, size), total != null ? total : 0L);
+    }
+
+    // Rows written before the index existed: fill normalized_name and their tokens in id order, off the startup thread
+    @Async("taskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int indexed = 0;
+        long lastId = 0;
+        List<IndexEntry> batch;
+        while (!(batch = jdbcTemplate.query(
+                "SELECT id, uploader_id, file_name FROM resources WHERE id > ? AND normalized_name IS NULL ORDER BY id LIMIT " + BATCH_SIZE,
+                (rs, rowNum) -> new IndexEntry(rs.getLong("id"), rs.getLong("uploader_id"), rs.getString("file_name")),
+                lastId)).isEmpty()) {
+            List<Object[]> names = new ArrayList<>(batch.size());
+            for (IndexEntry entry : batch) {
+                String normalized = NameNormalizer.normalize(entry.fileName());
+                names.add(new Object[] {normalized != null ? normalized : "", entry.resourceId()});
+            }
+            remove(batch.stream().map(IndexEntry::resourceId).toList());
+            index(batch);
+            jdbcTemplate.batchUpdate("UPDATE resources SET normalized_name = ? WHERE id = ?", names);
+            indexed += batch.size();
+            lastId = batch.get(batch.size() - 1).resourceId();
+        }
+        if (indexed > 0) {
+            log.info("Indexed {} existing file names for search", indexed);
+        }
+    }
+}
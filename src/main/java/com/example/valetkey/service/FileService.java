@@ -1,6 +1,8 @@
 package com.example.valetkey.service;
 
+import com.example.valetkey.model.FileSummary;
 import com.example.valetkey.model.Folder;
+import com.example.valetkey.model.NameNormalizer;
 import com.example.valetkey.model.Resource;
 import com.example.valetkey.model.User;
 import com.example.valetkey.repository.FolderRepository;
@@ -9,23 +11,39 @@ import com.example.valetkey.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.util.concurrent.CompletableFuture;
 import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
 
 @Service
 public class FileService {
@@ -56,6 +74,60 @@ public class FileService {
     @Autowired
     private StorageQuotaService storageQuotaService;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private BulkZipWriter bulkZipWriter;
+
+    @Autowired
+    private TempDownloadService tempDownloadService;
+
+    @Autowired
+    private TrashService trashService;
+
+    @Autowired
+    private FileNameIndexService fileNameIndexService;
+
+    @Autowired
+    private ObjectDeletionOutbox objectDeletionOutbox;
+
+    @Value("${upload.batch.max-files:1000}")
+    private int maxBatchFiles;
+
+    @Value("${upload.multipart.part-size-bytes:16777216}")
+    private long defaultPartSize;
+
+    @Value("${upload.multipart.max-part-urls-per-request:100}")
+    private int maxPartUrlsPerRequest;
+
+    @Value("${files.id-export.fetch-size:1000}")
+    private int idExportFetchSize;
+
+    // S3 limits: parts of 5 MB .. 5 GB (last part may be smaller), at most 10,000 parts
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final int MAX_PARTS = 10000;
+
+    private static final String SELECT_ROOT_FILE_IDS_SQL =
+        "SELECT id FROM resources WHERE uploader_id = ? AND folder_id IS NULL AND is_deleted = false " +
+        "ORDER BY uploaded_at DESC, id DESC";
+
+    private static final String SELECT_FOLDER_FILE_IDS_SQL =
+        "SELECT id FROM resources WHERE uploader_id = ? AND folder_id = ? AND is_deleted = false " +
+        "ORDER BY uploaded_at DESC, id DESC";
+
+    private static final String INSERT_PENDING_RESOURCE_SQL =
+        "INSERT INTO resources (file_name, file_path, uploader_id, folder_id, file_size, uploaded_at, " +
+        "last_modified, is_public, is_deleted, upload_status, normalized_name) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Transactional
     public Map<String, Object> generateUploadUrl(String fileName, Long fileSize, Long folderId, User user) {
         if (!user.isCreate() || !user.isWrite()) {
             throw new RuntimeException("User does not have permission to upload files");
@@ -91,7 +163,9 @@ public class FileService {
         resource.setUploader(user);
         resource.setFolder(folder);
         resource.setFileSize(fileSize);
+        resource.setUploadStatus("PENDING");
         resource = resourceRepository.save(resource);
+        fileNameIndexService.index(resource);
 
         int expiryMinutes = 15;
         String uploadUrl = awsS3Service.generatePresignedUploadUrl(objectKey, expiryMinutes, user);
@@ -105,11 +179,154 @@ public class FileService {
         return result;
     }
 
+    @Transactional
+    public Map<String, Object> generateUploadUrls(List<Map<String, Object>> files, Long folderId, User user) {
+        if (!user.isCreate() || !user.isWrite()) {
+            throw new RuntimeException("User does not have permission to upload files");
+        }
+
+        if (files == null || files.isEmpty()) {
+            throw new RuntimeException("No files provided");
+        }
+
+        if (files.size() > maxBatchFiles) {
+            throw new RuntimeException("Too many files in one batch. Maximum: " + maxBatchFiles);
+        }
+
+        List<String> fileNames = new ArrayList<>(files.size());
+        List<Long> fileSizes = new ArrayList<>(files.size());
+        long totalSize = 0;
+        for (Map<String, Object> file : files) {
+            Object sizeObj = file.get("fileSize");
+            Long fileSize = sizeObj != null ? Long.valueOf(sizeObj.toString()) : null;
+            if (fileSize == null || fileSize <= 0) {
+                throw new RuntimeException("Invalid file size for " + file.get("fileName"));
+            }
+            String fileName = (String) file.get("fileName");
+            if (fileName == null || fileName.trim().isEmpty()) {
+                fileName = "unnamed_" + System.currentTimeMillis();
+            }
+            fileNames.add(fileName);
+            fileSizes.add(fileSize);
+            totalSize += fileSize;
+        }
+
+        // One quota reservation for the whole batch
+        if (!storageQuotaService.hasStorageSpace(user, totalSize)) {
+            Long remaining = storageQuotaService.getRemainingStorage(user);
+            throw new RuntimeException("Storage quota exceeded. Available: " +
+                storageQuotaService.formatBytes(remaining) + ", Required: " +
+                storageQuotaService.formatBytes(totalSize));
+        }
+
+        Folder folder = null;
+        if (folderId != null) {
+            folder = folderRepository.findByIdAndOwnerAndNotDeleted(folderId, user)
+                .orElseThrow(() -> new RuntimeException("Folder not found"));
+        }
+
+        List<String> objectKeys = new ArrayList<>(files.size());
+        for (String fileName : fileNames) {
+            objectKeys.add("user-" + user.getId() + "/" + generateUniqueFileName(fileName));
+        }
+
+        List<Long> fileIds = insertPendingResources(fileNames, objectKeys, fileSizes, folder, user);
+        List<FileNameIndexService.IndexEntry> indexEntries = new ArrayList<>(fileIds.size());
+        for (int i = 0; i < fileIds.size(); i++) {
+            indexEntries.add(new FileNameIndexService.IndexEntry(fileIds.get(i), user.getId(), fileNames.get(i)));
+        }
+        fileNameIndexService.index(indexEntries);
+
+        int expiryMinutes = 15;
+        List<Map<String, Object>> uploads = new ArrayList<>(files.size());
+        for (int i = 0; i < fileNames.size(); i++) {
+            Map<String, Object> upload = new HashMap<>();
+            upload.put("fileName", fileNames.get(i));
+            upload.put("fileId", fileIds.get(i));
+            upload.put("objectKey", objectKeys.get(i));
+            upload.put("uploadUrl", awsS3Service.generatePresignedUploadUrl(objectKeys.get(i), expiryMinutes, user));
+            uploads.add(upload);
+        }
+
+        log.info("Generated {} batch upload URLs for user: {}", uploads.size(), user.getUsername());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("uploads", uploads);
+        result.put("count", uploads.size());
+        result.put("totalSize", totalSize);
+        result.put("expiresInMinutes", expiryMinutes);
+        return result;
+    }
+
+    // IDENTITY ids disable Hibernate insert batching, so pending rows go through one JDBC batch
+    private List<Long> insertPendingResources(List<String> fileNames, List<String> objectKeys,
+                                              List<Long> fileSizes, Folder folder, User user) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Long folderId = folder != null ? folder.getId() : null;
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+            con -> con.prepareStatement(INSERT_PENDING_RESOURCE_SQL, new String[] {"id"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setString(1, fileNames.get(i));
+                    ps.setString(2, objectKeys.get(i));
+                    ps.setLong(3, user.getId());
+                    if (folderId != null) {
+                        ps.setLong(4, folderId);
+                    } else {
+                        ps.setNull(4, Types.BIGINT);
+                    }
+                    ps.setLong(5, fileSizes.get(i));
+                    ps.setTimestamp(6, now);
+                    ps.setTimestamp(7, now);
+                    ps.setBoolean(8, false);
+                    ps.setBoolean(9, false);
+                    ps.setString(10, "PENDING");
+                    ps.setString(11, NameNormalizer.normalize(fileNames.get(i)));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return fileNames.size();
+                }
+            },
+            keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != fileNames.size()) {
+            throw new RuntimeException("Failed to create file records: expected " + fileNames.size() +
+                " generated ids, got " + keys.size());
+        }
+
+        List<Long> ids = new ArrayList<>(keys.size());
+        for (Map<String, Object> key : keys) {
+            ids.add(((Number) key.values().iterator().next()).longValue());
+        }
+        return ids;
+    }
+
+    @Async("uploadUrlExecutor")
+    public CompletableFuture<Map<String, Object>> generateUploadUrlsAsync(
+            List<Map<String, Object>> files, Long folderId, User user) {
+        try {
+            // Self-invocation bypasses the @Transactional proxy, so open the transaction explicitly
+            Map<String, Object> result = transactionTemplate.execute(status -> generateUploadUrls(files, folderId, user));
+            return CompletableFuture.completedFuture(result);
+        } catch (Exception e) {
+            log.error("Async batch upload URL generation failed for user {}: {}",
+                user.getUsername(), e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     @Async("uploadUrlExecutor")
     public CompletableFuture<Map<String, Object>> generateUploadUrlAsync(
             String fileName, Long fileSize, Long folderId, User user) {
         try {
-            Map<String, Object> result = generateUploadUrl(fileName, fileSize, folderId, user);
+            // Self-invocation bypasses the @Transactional proxy, so open the transaction explicitly
+            Map<String, Object> result = transactionTemplate.execute(status -> generateUploadUrl(fileName, fileSize, folderId, user));
             return CompletableFuture.completedFuture(result);
         } catch (Exception e) {
             log.error("Async upload URL generation failed for user {}: {}", 
@@ -119,33 +336,183 @@ public class FileService {
     }
 
     @Transactional
+    public Map<String, Object> initiateMultipartUpload(String fileName, Long fileSize, Long partSize,
+                                                       String contentType, Long folderId, User user) {
+        if (!user.isCreate() || !user.isWrite()) {
+            throw new RuntimeException("User does not have permission to upload files");
+        }
+
+        if (fileSize == null || fileSize <= 0) {
+            throw new RuntimeException("Invalid file size");
+        }
+
+        if (!storageQuotaService.hasStorageSpace(user, fileSize)) {
+            Long remaining = storageQuotaService.getRemainingStorage(user);
+            throw new RuntimeException("Storage quota exceeded. Available: " +
+                storageQuotaService.formatBytes(remaining) + ", Required: " +
+                storageQuotaService.formatBytes(fileSize));
+        }
+
+        if (fileName == null || fileName.trim().isEmpty()) {
+            fileName = "unnamed_" + System.currentTimeMillis();
+        }
+
+        long effectivePartSize = partSize != null ? partSize : defaultPartSize;
+        effectivePartSize = Math.max(effectivePartSize, MIN_PART_SIZE);
+        // Grow the part size until the file fits in the S3 part limit
+        effectivePartSize = Math.max(effectivePartSize, (fileSize + MAX_PARTS - 1) / MAX_PARTS);
+        if (effectivePartSize > MAX_PART_SIZE) {
+            throw new RuntimeException("File too large for multipart upload");
+        }
+        int partCount = (int) ((fileSize + effectivePartSize - 1) / effectivePartSize);
+
+        Folder folder = null;
+        if (folderId != null) {
+            folder = folderRepository.findByIdAndOwnerAndNotDeleted(folderId, user)
+                .orElseThrow(() -> new RuntimeException("Folder not found"));
+        }
+
+        String objectKey = "user-" + user.getId() + "/" + generateUniqueFileName(fileName);
+        String uploadId = awsS3Service.createMultipartUpload(objectKey, contentType);
+
+        Resource resource = new Resource();
+        resource.setFileName(fileName);
+        resource.setFilePath(objectKey);
+        resource.setUploader(user);
+        resource.setFolder(folder);
+        resource.setFileSize(fileSize);
+        resource.setContentType(contentType);
+        resource.setUploadStatus("PENDING");
+        resource.setMultipartUploadId(uploadId);
+        resource.setMultipartPartSize(effectivePartSize);
+        resource.setMultipartPartCount(partCount);
+        resource = resourceRepository.save(resource);
+        fileNameIndexService.index(resource);
+        uploadSessionService.createSession(resource);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("fileId", resource.getId());
+        result.put("objectKey", objectKey);
+        result.put("uploadId", uploadId);
+        result.put("partSize", effectivePartSize);
+        result.put("partCount", partCount);
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> generateUploadPartUrls(Long fileId, List<Integer> partNumbers, User user) {
+        Resource resource = getPendingMultipartUpload(fileId, user);
+
+        if (partNumbers == null || partNumbers.isEmpty()) {
+            throw new RuntimeException("No part numbers requested");
+        }
+
+        if (partNumbers.size() > maxPartUrlsPerRequest) {
+            throw new RuntimeException("Too many parts requested. Maximum: " + maxPartUrlsPerRequest);
+        }
+
+        for (Integer partNumber : partNumbers) {
+            if (partNumber == null || partNumber < 1 || partNumber > resource.getMultipartPartCount()) {
+                throw new RuntimeException("Invalid part number: " + partNumber);
+            }
+        }
+
+        int expiryMinutes = 60;
+        Map<Integer, String> urls = awsS3Service.generatePresignedUploadPartUrls(
+            resource.getFilePath(), resource.getMultipartUploadId(), partNumbers, expiryMinutes, user);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("fileId", resource.getId());
+        result.put("partUrls", urls);
+        result.put("expiresInMinutes", expiryMinutes);
+        return result;
+    }
+
+    @Transactional
+    public void abortMultipartUpload(Long fileId, User user) {
+        Resource resource = getPendingMultipartUpload(fileId, user);
+
+        awsS3Service.abortMultipartUpload(resource.getFilePath(), resource.getMultipartUploadId());
+        resourceRepository.delete(resource);
+        fileNameIndexService.remove(List.of(resource.getId()));
+        uploadSessionService.markFinished(resource.getId(), "ABORTED");
+
+        log.info("Multipart upload aborted: {} by user: {}", resource.getFileName(), user.getUsername());
+    }
+
+    private Resource getPendingMultipartUpload(Long fileId, User user) {
+        Resource resource = resourceRepository.findByIdAndUploader(fileId, user)
+            .orElseThrow(() -> new RuntimeException("File not found"));
+
+        if (!resource.isMultipartUpload() || !"PENDING".equals(resource.getUploadStatus())) {
+            throw new RuntimeException("File is not an active multipart upload");
+        }
+
+        return resource;
+    }
+
+    // Stitches the uploaded parts together; the caller then verifies the object like a single-PUT upload
+    private void finalizeMultipartUpload(Resource resource) {
+        completeMultipartObject(resource);
+        resource.setMultipartUploadId(null);
+        uploadSessionService.markFinished(resource.getId(), "COMPLETED");
+    }
+
+    // The S3 half of finalizeMultipartUpload, callable before a transaction is open
+    private void completeMultipartObject(Resource resource) {
+        List<CompletedPart> parts = uploadSessionService.resolveCompletedParts(resource);
+
+        if (parts.size() != resource.getMultipartPartCount()) {
+            throw new RuntimeException("Multipart upload incomplete: " + parts.size() + " of " +
+                resource.getMultipartPartCount() + " parts uploaded");
+        }
+
+        awsS3Service.completeMultipartUpload(resource.getFilePath(), resource.getMultipartUploadId(), parts);
+    }
+
+    // SDK and IO exceptions often carry no message, and Map.of rejects null values
+    private static String failureMessage(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    // Thrown after a rejected upload has been cleaned up; the cleanup (row, tokens, outbox entry) must still commit
+    public static class UploadRejectedException extends RuntimeException {
+        public UploadRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    @Transactional(noRollbackFor = UploadRejectedException.class)
     public Resource confirmUpload(Long fileId, String contentType, User user) {
         Resource resource = resourceRepository.findById(fileId)
+            .filter(r -> !r.isDeleted())
             .orElseThrow(() -> new RuntimeException("File not found"));
 
         if (!resource.getUploader().getId().equals(user.getId())) {
             throw new RuntimeException("Access denied");
         }
 
+        if (resource.isMultipartUpload()) {
+            finalizeMultipartUpload(resource);
+        }
+
         if (!awsS3Service.objectExists(resource.getFilePath())) {
             resourceRepository.delete(resource);
-            throw new RuntimeException("File upload failed - file not found in storage");
+            fileNameIndexService.remove(List.of(resource.getId()));
+            throw new UploadRejectedException("File upload failed - file not found in storage");
         }
 
-        Long actualStorageUsed = resourceRepository.getTotalStorageUsedByUser(user);
+        // Confirmed bytes only: this row is still PENDING and is added below, like the deltas everywhere else
+        Long actualStorageUsed = resourceRepository.getConfirmedStorageUsedByUser(user);
         if (actualStorageUsed + resource.getFileSize() > user.getStorageQuota()) {
             log.warn("Storage quota exceeded for user {}: used={}, quota={}, file={}",
                 user.getUsername(), actualStorageUsed, user.getStorageQuota(), resource.getFileSize());
             
-            try {
-                awsS3Service.deleteObject(resource.getFilePath());
-            } catch (Exception e) {
-                log.error("Failed to delete file from S3 during quota rollback: {}", e.getMessage());
-            }
-            
+            objectDeletionOutbox.enqueue(List.of(resource.getFilePath()));
             resourceRepository.delete(resource);
+            fileNameIndexService.remove(List.of(resource.getId()));
             
-            throw new RuntimeException("Storage quota exceeded. Used: " + formatBytes(actualStorageUsed) + 
+            throw new UploadRejectedException("Storage quota exceeded. Used: " + formatBytes(actualStorageUsed) + 
                 ", Quota: " + formatBytes(user.getStorageQuota()) + 
                 ". Please delete some files before uploading.");
         }
@@ -153,11 +520,12 @@ public class FileService {
         if (contentType != null) {
             resource.setContentType(contentType);
         }
+        resource.setUploadStatus("COMPLETED");
 
         resource = resourceRepository.save(resource);
 
         user.setStorageUsed(actualStorageUsed + resource.getFileSize());
-        userRepository.save(user);
+        userRepository.setStorageUsed(user.getId(), user.getStorageUsed());
         
         storageQuotaService.invalidateStorageCache(user.getId());
 
@@ -179,9 +547,151 @@ public class FileService {
         return resource;
     }
 
+    /**
+     * Confirms a batch of uploads. Multipart completion and the existence HEADs run between two short
+     * transactions, so no DB connection is held across S3 round-trips.
+     */
+    public Map<String, Object> confirmUploads(Map<Long, String> contentTypes, User user) {
+        if (contentTypes == null || contentTypes.isEmpty()) {
+            throw new RuntimeException("No files to confirm");
+        }
+
+        if (contentTypes.size() > maxBatchFiles) {
+            throw new RuntimeException("Too many files in one batch. Maximum: " + maxBatchFiles);
+        }
+
+        List<Map<String, Object>> failed = new ArrayList<>();
+        List<Resource> pending = transactionTemplate.execute(status -> findPendingUploads(contentTypes.keySet(), user));
+        Set<Long> foundIds = pending.stream().map(Resource::getId).collect(Collectors.toSet());
+        for (Long fileId : contentTypes.keySet()) {
+            if (!foundIds.contains(fileId)) {
+                failed.add(Map.of("fileId", fileId, "message", "File not found or already confirmed"));
+            }
+        }
+
+        Set<Long> completedMultipart = new HashSet<>();
+        for (Resource resource : new ArrayList<>(pending)) {
+            if (resource.isMultipartUpload()) {
+                try {
+                    completeMultipartObject(resource);
+                    completedMultipart.add(resource.getId());
+                } catch (Exception e) {
+                    pending.remove(resource);
+                    failed.add(Map.of("fileId", resource.getId(), "message", failureMessage(e)));
+                }
+            }
+        }
+
+        Map<String, Boolean> existence = awsS3Service.objectsExist(
+            pending.stream().map(Resource::getFilePath).toList());
+
+        return transactionTemplate.execute(status ->
+            applyConfirmations(pending, completedMultipart, existence, contentTypes, failed, user));
+    }
+
+    private List<Resource> findPendingUploads(Collection<Long> fileIds, User user) {
+        List<Resource> pending = new ArrayList<>();
+        if (fileIds.isEmpty()) {
+            return pending;
+        }
+        for (Resource resource : resourceRepository.findByIdsAndUploader(new ArrayList<>(fileIds), user)) {
+            if ("PENDING".equals(resource.getUploadStatus())) {
+                pending.add(resource);
+            }
+        }
+        return pending;
+    }
+
+    private Map<String, Object> applyConfirmations(List<Resource> checked, Set<Long> completedMultipart,
+                                                   Map<String, Boolean> existence, Map<Long, String> contentTypes,
+                                                   List<Map<String, Object>> failed, User user) {
+        // Re-read under the transaction; a concurrent confirm may have taken a row since the first read
+        List<Resource> pending = findPendingUploads(checked.stream().map(Resource::getId).toList(), user);
+        Set<Long> stillPending = pending.stream().map(Resource::getId).collect(Collectors.toSet());
+        for (Resource resource : checked) {
+            if (!stillPending.contains(resource.getId())) {
+                failed.add(Map.of("fileId", resource.getId(), "message", "File not found or already confirmed"));
+            }
+        }
+        for (Resource resource : pending) {
+            if (completedMultipart.contains(resource.getId())) {
+                resource.setMultipartUploadId(null);
+                uploadSessionService.markFinished(resource.getId(), "COMPLETED");
+            }
+        }
+
+        List<Long> rowsToDelete = new ArrayList<>();
+        List<String> objectsToDelete = new ArrayList<>();
+        List<Resource> accepted = new ArrayList<>();
+        long storageUsed = resourceRepository.getConfirmedStorageUsedByUser(user);
+        long acceptedSize = 0;
+
+        for (Resource resource : pending) {
+            if (!Boolean.TRUE.equals(existence.get(resource.getFilePath()))) {
+                rowsToDelete.add(resource.getId());
+                failed.add(Map.of("fileId", resource.getId(), "message", "File upload failed - file not found in storage"));
+                continue;
+            }
+            if (storageUsed + acceptedSize + resource.getFileSize() > user.getStorageQuota()) {
+                rowsToDelete.add(resource.getId());
+                objectsToDelete.add(resource.getFilePath());
+                failed.add(Map.of("fileId", resource.getId(), "message", "Storage quota exceeded"));
+                continue;
+            }
+            String contentType = contentTypes.get(resource.getId());
+            if (contentType != null) {
+                resource.setContentType(contentType);
+            }
+            resource.setUploadStatus("COMPLETED");
+            resource.setBackupStatus("PENDING");
+            acceptedSize += resource.getFileSize();
+            accepted.add(resource);
+        }
+
+        // Rejected objects go to the deletion outbox with this transaction, not N S3 calls inside it
+        if (!objectsToDelete.isEmpty()) {
+            objectDeletionOutbox.enqueue(objectsToDelete);
+        }
+        if (!rowsToDelete.isEmpty()) {
+            resourceRepository.deleteAllByIdInBatch(rowsToDelete);
+            fileNameIndexService.remove(rowsToDelete);
+        }
+
+        if (acceptedSize > 0) {
+            userRepository.adjustStorageUsed(user.getId(), acceptedSize);
+            storageQuotaService.invalidateStorageCache(user.getId());
+        }
+
+        Set<Long> enqueueFailed = sqsService.sendBackupMessages(accepted.stream()
+            .map(r -> new SQSService.BackupMessage(r.getId(), r.getFilePath(), r.getFileSize()))
+            .toList());
+        for (Resource resource : accepted) {
+            if (enqueueFailed.contains(resource.getId())) {
+                resource.setBackupStatus("FAILED");
+                resource.setBackupError("Failed to enqueue backup");
+            }
+        }
+        resourceRepository.saveAll(accepted);
+
+        Map<String, Integer> backupCounts = new HashMap<>();
+        backupCounts.put("PENDING", accepted.size() - enqueueFailed.size());
+        backupCounts.put("FAILED", enqueueFailed.size());
+        cloudWatchMetricsService.recordBackupResults(backupCounts);
+
+        log.info("Batch upload confirmed: {} files ({}) by user: {}, {} failed",
+            accepted.size(), formatBytes(acceptedSize), user.getUsername(), failed.size());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("confirmed", accepted);
+        result.put("failed", failed);
+        result.put("confirmedSize", acceptedSize);
+        return result;
+    }
+
     @Transactional(readOnly = true)
     public Resource getFile(Long fileId, User user) {
         Resource resource = resourceRepository.findById(fileId)
+            .filter(r -> !r.isDeleted())
             .orElseThrow(() -> new RuntimeException("File not found"));
 
         if (!resource.getUploader().getId().equals(user.getId())) {
@@ -201,7 +711,8 @@ public class FileService {
         }
 
         int expiryMinutes = 10;
-        String downloadUrl = awsS3Service.generatePresignedDownloadUrl(resource.getFilePath(), expiryMinutes, user);
+        String downloadUrl = awsS3Service.generatePresignedDownloadUrl(
+            resource.getFilePath(), expiryMinutes, user, resource.isUploadCompleted());
         
         long duration = System.currentTimeMillis() - startTime;
         double latencySeconds = duration / 1000.0;
@@ -217,34 +728,64 @@ public class FileService {
         return downloadUrl;
     }
 
+    // Moves the file to the trash; it is removed for good by a purge or after the retention period
     @Transactional
     public void deleteFile(Long fileId, User user) {
         Resource resource = getFile(fileId, user);
 
-        awsS3Service.deleteObject(resource.getFilePath());
-
-        user.setStorageUsed(user.getStorageUsed() - resource.getFileSize());
-        userRepository.save(user);
+        trashService.trashFiles(List.of(resource.getId()), user);
 
-        resourceRepository.delete(resource);
-        
-        storageQuotaService.invalidateStorageCache(user.getId());
-
-        log.info("File deleted: {} by user: {}", resource.getFileName(), user.getUsername());
+        log.info("File moved to trash: {} by user: {}", resource.getFileName(), user.getUsername());
     }
 
-    @Transactional(readOnly = true, timeout = 20)
-    public List<Resource> getAllFiles(User user, Long folderId) {
+    /**
+     * Streams the ids of the user's files in a folder (root when null or not found) as
+     * {"fileIds":[...],"count":n}. Only the id column is read, over a forward-only cursor,
+     * so memory stays flat however many files the folder holds.
+     */
+    @Transactional(readOnly = true)
+    public void writeAllFileIds(User user, Long folderId, OutputStream out) throws IOException {
         Folder folder = null;
         if (folderId != null) {
             folder = folderRepository.findByIdAndOwnerAndNotDeleted(folderId, user)
                 .orElse(null);
         }
-        return resourceRepository.findByUploaderAndFolderNullableOrderByUploadedAtDesc(user, folder);
+        Long resolvedFolderId = folder != null ? folder.getId() : null;
+        String sql = resolvedFolderId != null ? SELECT_FOLDER_FILE_IDS_SQL : SELECT_ROOT_FILE_IDS_SQL;
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+        writer.write("{\"fileIds\":[");
+        long[] count = {0};
+        try {
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // MySQL Connector/J only streams rows with this sentinel; other drivers honour a real fetch size
+                boolean mysql = con.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+                ps.setFetchSize(mysql ? Integer.MIN_VALUE : idExportFetchSize);
+                ps.setLong(1, user.getId());
+                if (resolvedFolderId != null) {
+                    ps.setLong(2, resolvedFolderId);
+                }
+                return ps;
+            }, rs -> {
+                try {
+                    if (count[0]++ > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(Long.toString(rs.getLong(1)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.write("],\"count\":" + count[0] + "}");
+        writer.flush();
     }
 
     @Transactional(readOnly = true)
-    public Page<Resource> listFiles(User user, Long folderId, int page, int size) {
+    public Page<FileSummary> listFiles(User user, Long folderId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         
         Folder folder = null;
@@ -253,17 +794,85 @@ public class FileService {
                 .orElse(null);
         }
         
-        return resourceRepository.findByUploaderAndFolderNullableOrderByUploadedAtDesc(user, folder, pageable);
+        return resourceRepository.findSummariesByUploaderAndFolderNullable(user, folder, pageable);
+    }
+
+    // One slice of a keyset listing; nextCursor is null on the last slice, totalItems null unless requested
+    public record FileSlice(List<FileSummary> files, String nextCursor, Long totalItems) {
     }
 
+    /**
+     * Cursor listing on (uploadedAt, id), newest first. Each slice continues after the cursor with
+     * the expanded keyset predicate (uploadedAt < c OR (uploadedAt = c AND id < i)) as a range scan
+     * on idx_resources_listing, so a deep slice costs the same as the first; the total count is an
+     * extra query and only runs when asked for.
+     */
     @Transactional(readOnly = true)
-    public Page<Resource> searchFiles(User user, String query, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return resourceRepository.searchByUploaderAndFileName(user, query, pageable);
+    public FileSlice listFilesAfter(User user, Long folderId, String cursor, int size, boolean includeTotal) {
+        Folder folder = null;
+        if (folderId != null) {
+            folder = folderRepository.findByIdAndOwnerAndNotDeleted(folderId, user)
+                .orElse(null);
+        }
+
+        // One extra row tells whether another slice exists without counting
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<FileSummary> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = folder == null
+                ? resourceRepository.findRootListingFirst(user, limit)
+                : resourceRepository.findFolderListingFirst(user, folder, limit);
+        } else {
+            ListingCursor after = decodeCursor(cursor);
+            rows = folder == null
+                ? resourceRepository.findRootListingAfter(user, after.uploadedAt(), after.id(), limit)
+                : resourceRepository.findFolderListingAfter(user, folder, after.uploadedAt(), after.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            FileSummary last = rows.get(size - 1);
+            nextCursor = encodeCursor(last.uploadedAt(), last.id());
+        }
+
+        Long totalItems = null;
+        if (includeTotal) {
+            totalItems = folder == null
+                ? resourceRepository.countRootListing(user)
+                : resourceRepository.countFolderListing(user, folder);
+        }
+
+        return new FileSlice(rows, nextCursor, totalItems);
+    }
+
+    private static String encodeCursor(LocalDateTime uploadedAt, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((uploadedAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record ListingCursor(LocalDateTime uploadedAt, Long id) {
+    }
+
+    private static ListingCursor decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new ListingCursor(LocalDateTime.parse(position[0]), Long.valueOf(position[1]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
     }
 
     @Transactional(readOnly = true)
-    public Page<Resource> searchFilesWithFilters(User user, Long folderId, String query, String fileType, Long minSize, Long maxSize, int page, int size) {
+    public Page<FileSummary> searchFiles(User user, String query, int page, int size) {
+        return fileNameIndexService.search(user, query, null, null, null, null, page, size);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<FileSummary> searchFilesWithFilters(User user, Long folderId, String query, String fileType, Long minSize, Long maxSize, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
         
         Folder folder = null;
@@ -272,7 +881,11 @@ public class FileService {
                 .orElse(null);
         }
         
-        return resourceRepository.searchWithFilters(user, folder, query, fileType, minSize, maxSize, pageable);
+        if (query != null && !query.isBlank()) {
+            return fileNameIndexService.search(user, query, folder != null ? folder.getId() : null,
+                fileType, minSize, maxSize, page, size);
+        }
+        return resourceRepository.findSummariesWithFilters(user, folder, fileType, minSize, maxSize, pageable);
     }
 
     @Transactional(readOnly = true)
@@ -319,6 +932,7 @@ public class FileService {
 
     public Resource getFileByPublicToken(String token) {
         return resourceRepository.findByPublicLinkToken(token)
+            .filter(r -> !r.isDeleted())
             .orElseThrow(() -> new RuntimeException("Invalid or expired public link"));
     }
 
@@ -329,16 +943,19 @@ public class FileService {
         tempUser.setRead(true);
         
         int expiryMinutes = 60;
-        return awsS3Service.generatePresignedDownloadUrl(resource.getFilePath(), expiryMinutes, tempUser);
+        return awsS3Service.generatePresignedDownloadUrl(
+            resource.getFilePath(), expiryMinutes, tempUser, resource.isUploadCompleted());
     }
 
-    @Transactional(readOnly = true)
+    @Transactional
     public Map<String, Object> getUserStorageInfo(User user) {
-        Long actualStorageUsed = resourceRepository.getTotalStorageUsedByUser(user);
+        // Confirmed bytes only: pending rows are added at confirm time, so counting them here would double-count
+        Long actualStorageUsed = resourceRepository.getConfirmedStorageUsedByUser(user);
         
         if (!actualStorageUsed.equals(user.getStorageUsed())) {
             user.setStorageUsed(actualStorageUsed);
-            userRepository.save(user);
+            userRepository.setStorageUsed(user.getId(), actualStorageUsed);
+            storageQuotaService.invalidateStorageCache(user.getId());
         }
 
         Map<String, Object> storageInfo = new HashMap<>();
@@ -376,35 +993,19 @@ public class FileService {
         }
 
         resource.setFileName(newName.trim());
-        return resourceRepository.save(resource);
+        resource = resourceRepository.save(resource);
+        fileNameIndexService.reindex(resource);
+        return resource;
     }
 
-    @Transactional
-    public void bulkDeleteFiles(List<Long> fileIds, User user) {
-        List<Resource> resources = resourceRepository.findByIdsAndUploader(fileIds, user);
-        
-        long totalSize = 0;
-        for (Resource resource : resources) {
-            awsS3Service.deleteObject(resource.getFilePath());
-            
-            totalSize += resource.getFileSize();
-            
-            resourceRepository.delete(resource);
-        }
-        
-        user.setStorageUsed(user.getStorageUsed() - totalSize);
-        userRepository.save(user);
-        
-        storageQuotaService.invalidateStorageCache(user.getId());
-        
-        log.info("Bulk deleted {} files by user: {}", resources.size(), user.getUsername());
+    public Map<String, Object> bulkDeleteFiles(List<Long> fileIds, User user) {
+        return trashService.trashFiles(fileIds, user);
     }
 
     @Async("fileOperationExecutor")
-    public CompletableFuture<Void> bulkDeleteFilesAsync(List<Long> fileIds, User user) {
+    public CompletableFuture<Map<String, Object>> bulkDeleteFilesAsync(List<Long> fileIds, User user) {
         try {
-            bulkDeleteFiles(fileIds, user);
-            return CompletableFuture.completedFuture(null);
+            return CompletableFuture.completedFuture(bulkDeleteFiles(fileIds, user));
         } catch (Exception e) {
             log.error("Async bulk delete failed for user {}: {}", user.getUsername(), e.getMessage());
             return CompletableFuture.failedFuture(e);
@@ -449,27 +1050,17 @@ public class FileService {
         try {
             tempZip = Files.createTempFile("bulk-download-", ".zip");
 
-            try (ZipOutputStream zos = new ZipOutputStream(
-                    new BufferedOutputStream(Files.newOutputStream(tempZip)))) {
-
-                for (Resource resource : resources) {
-                    try (InputStream fileStream = awsS3Service.getObjectInputStream(resource.getFilePath())) {
-                        ZipEntry entry = new ZipEntry(
-                            resource.getFileName() != null ? resource.getFileName() : resource.getId() + ".bin");
-                        zos.putNextEntry(entry);
-                        fileStream.transferTo(zos);
-                        zos.closeEntry();
-                    } catch (Exception e) {
-                        log.error("Error adding file {} to ZIP: {}", resource.getFileName(), e.getMessage());
-                    }
-                }
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempZip))) {
+                bulkZipWriter.write(resources, out);
             }
 
             String zipObjectKey = "temp-downloads/user-" + user.getId() + "/bulk-" + System.currentTimeMillis() + ".zip";
             awsS3Service.uploadObject(zipObjectKey, tempZip, "application/zip");
 
             int expiryMinutes = 30;
-            return awsS3Service.generatePresignedDownloadUrl(zipObjectKey, expiryMinutes, user);
+            tempDownloadService.register(zipObjectKey, user.getId(), Files.size(tempZip),
+                LocalDateTime.now().plusMinutes(expiryMinutes));
+            return awsS3Service.generatePresignedDownloadUrl(zipObjectKey, expiryMinutes, user, true);
 
         } catch (Exception e) {
             log.error("Error generating bulk download ZIP", e);
@@ -485,6 +1076,27 @@ public class FileService {
         }
     }
 
+    @Transactional(readOnly = true)
+    public List<Resource> getFilesForBulkDownload(List<Long> fileIds, User user) {
+        if (fileIds == null || fileIds.isEmpty()) {
+            throw new RuntimeException("No files selected for download");
+        }
+
+        if (!user.isRead()) {
+            throw new RuntimeException("User does not have permission to download files");
+        }
+
+        List<Resource> resources = resourceRepository.findByIdsAndUploader(fileIds, user);
+        if (resources.isEmpty()) {
+            throw new RuntimeException("No files found");
+        }
+        return resources;
+    }
+
+    public void writeZip(List<Resource> resources, OutputStream out) throws IOException {
+        bulkZipWriter.write(resources, out);
+    }
+
     private String generateUniqueFileName(String originalName) {
         String timestamp = String.valueOf(System.currentTimeMillis());
         String randomStr = UUID.randomUUID().toString().substring(0, 8);
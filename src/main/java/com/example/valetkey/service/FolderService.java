@@ -1,14 +1,25 @@
 package com.example.valetkey.service;
 
 import com.example.valetkey.model.Folder;
+import com.example.valetkey.model.NameNormalizer;
 import com.example.valetkey.model.User;
 import com.example.valetkey.repository.FolderRepository;
+import com.example.valetkey.repository.ResourceRepository;
+import com.example.valetkey.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Service
@@ -16,9 +27,32 @@ public class FolderService {
 
     private static final Logger log = LoggerFactory.getLogger(FolderService.class);
 
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+    // Fits the indexed path column (760 chars) on MySQL utf8mb4
+    private static final int MAX_PATH_LENGTH = 760;
+
     @Autowired
     private FolderRepository folderRepository;
 
+    @Autowired
+    private ResourceRepository resourceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FolderTreeCache folderTreeCache;
+
+    // Set once backfillPaths has given every folder a path; until then writes call ensurePaths first
+    private volatile boolean pathsComplete;
+
     @Transactional
     public Folder createFolder(String folderName, Long parentFolderId, User owner) {
         if (folderName == null || folderName.trim().isEmpty()) {
@@ -31,14 +65,11 @@ public class FolderService {
             throw new RuntimeException("Invalid folder name");
         }
 
+        ensurePaths(owner);
         Folder parentFolder = null;
         if (parentFolderId != null) {
             parentFolder = folderRepository.findByIdAndOwnerAndNotDeleted(parentFolderId, owner)
                 .orElseThrow(() -> new RuntimeException("Parent folder not found"));
-            
-            if (isCircularReference(parentFolder, parentFolderId)) {
-                throw new RuntimeException("Cannot create folder: circular reference detected");
-            }
         }
 
         if (parentFolder != null) {
@@ -56,6 +87,14 @@ public class FolderService {
         Folder folder = new Folder(folderName, parentFolder, owner);
         folder = folderRepository.save(folder);
 
+        // The id is only known after the insert
+        folder.setPath(childPath(parentFolder, folder.getId()));
+        if (folder.getPath().length() > MAX_PATH_LENGTH) {
+            throw new RuntimeException("Folder nesting is too deep");
+        }
+        folder = folderRepository.save(folder);
+        folderTreeCache.folderCreated(folder);
+
         log.info("Created folder: {} by user: {}", folderName, owner.getUsername());
         return folder;
     }
@@ -77,42 +116,8 @@ public class FolderService {
         }
     }
 
-    @Transactional(readOnly = true)
-    public List<Map<String, Object>> getFolderTree(User owner) {
-        List<Folder> allFolders = folderRepository.findAllByOwnerAndNotDeleted(owner);
-        Map<Long, Map<String, Object>> folderMap = new HashMap<>();
-        List<Map<String, Object>> rootFolders = new ArrayList<>();
-
-        for (Folder folder : allFolders) {
-            Map<String, Object> folderData = new HashMap<>();
-            folderData.put("id", folder.getId());
-            folderData.put("name", folder.getFolderName());
-            folderData.put("createdAt", folder.getCreatedAt());
-            folderData.put("lastModified", folder.getLastModified());
-            folderData.put("children", new ArrayList<Map<String, Object>>());
-            
-            if (folder.getParentFolder() != null) {
-                folderData.put("parentId", folder.getParentFolder().getId());
-            }
-            
-            folderMap.put(folder.getId(), folderData);
-        }
-
-        for (Map<String, Object> folderData : folderMap.values()) {
-            Long parentId = (Long) folderData.get("parentId");
-            if (parentId == null) {
-                rootFolders.add(folderData);
-            } else {
-                Map<String, Object> parent = folderMap.get(parentId);
-                if (parent != null) {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> children = (List<Map<String, Object>>) parent.get("children");
-                    children.add(folderData);
-                }
-            }
-        }
-
-        return rootFolders;
+    public List<FolderTreeCache.FolderTreeNode> getFolderTree(User owner) {
+        return folderTreeCache.getTree(owner.getId());
     }
 
     @Transactional(readOnly = true)
@@ -131,21 +136,22 @@ public class FolderService {
         Folder current = folderRepository.findByIdAndOwnerAndNotDeleted(folderId, owner)
             .orElseThrow(() -> new RuntimeException("Folder not found"));
 
-        List<Map<String, Object>> path = new ArrayList<>();
-        while (current != null) {
-            Map<String, Object> folderData = new HashMap<>();
-            folderData.put("id", current.getId());
-            folderData.put("name", current.getFolderName());
-            path.add(0, folderData);
-            current = current.getParentFolder();
+        Map<Long, Folder> ancestors = loadFolders(current.getPathIds());
+        for (Long id : current.getPathIds()) {
+            Folder ancestor = ancestors.get(id);
+            if (ancestor != null) {
+                Map<String, Object> folderData = new HashMap<>();
+                folderData.put("id", ancestor.getId());
+                folderData.put("name", ancestor.getFolderName());
+                breadcrumb.add(folderData);
+            }
         }
-
-        breadcrumb.addAll(path);
         return breadcrumb;
     }
 
     @Transactional
     public Folder renameFolder(Long folderId, String newName, User owner) {
+        ensurePaths(owner);
         Folder folder = getFolder(folderId, owner);
 
         if (newName == null || newName.trim().isEmpty()) {
@@ -169,6 +175,7 @@ public class FolderService {
 
         folder.setFolderName(newName);
         folder = folderRepository.save(folder);
+        folderTreeCache.folderRenamed(folder);
 
         log.info("Renamed folder {} to {} by user: {}", folderId, newName, owner.getUsername());
         return folder;
@@ -176,6 +183,7 @@ public class FolderService {
 
     @Transactional
     public Folder moveFolder(Long folderId, Long targetParentFolderId, User owner) {
+        ensurePaths(owner);
         Folder folder = getFolder(folderId, owner);
 
         Folder targetParent = null;
@@ -183,7 +191,7 @@ public class FolderService {
             targetParent = folderRepository.findByIdAndOwnerAndNotDeleted(targetParentFolderId, owner)
                 .orElseThrow(() -> new RuntimeException("Target parent folder not found"));
             
-            if (isDescendant(folder, targetParentFolderId)) {
+            if (folder.isAncestorOrSelf(targetParent)) {
                 throw new RuntimeException("Cannot move folder into itself or its descendants");
             }
         }
@@ -200,66 +208,258 @@ public class FolderService {
             }
         }
 
-        folder.setParentFolder(targetParent);
-        folder = folderRepository.save(folder);
+        List<Long> oldPathIds = folder.getPathIds();
+        folder = reparentSubtree(folder, targetParent);
+        folderTreeCache.folderMoved(folder, oldPathIds);
 
         log.info("Moved folder {} to parent {} by user: {}", folderId, targetParentFolderId, owner.getUsername());
         return folder;
     }
 
+    /**
+     * Moves the folder to the trash. With deleteContents the whole subtree goes with it: the
+     * descendant ids come from one path-prefix query, then folders and files are flagged with
+     * set-based UPDATEs sharing one deletedAt (so the subtree can be restored as a unit) and
+     * storage_used is adjusted by a single aggregate delta.
+     */
     @Transactional
     public void deleteFolder(Long folderId, boolean deleteContents, User owner) {
+        ensurePaths(owner);
         Folder folder = getFolder(folderId, owner);
 
-        folder.moveToTrash();
-        folderRepository.save(folder);
+        if (!deleteContents) {
+            if (folderRepository.hasActiveChildren(folder) || resourceRepository.existsActiveInFolder(folder)) {
+                throw new RuntimeException("Folder is not empty");
+            }
+            folder.moveToTrash();
+            folderRepository.save(folder);
+            folderTreeCache.folderRemoved(folder);
+            log.info("Deleted folder {} by user: {}", folderId, owner.getUsername());
+            return;
+        }
 
-        log.info("Deleted folder {} by user: {}", folderId, owner.getUsername());
+        List<Long> subtreeIds = folderRepository.findSubtreeIds(folder.getPath());
+        LocalDateTime deletedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        long freedSize = 0;
+        int trashedFiles = 0;
+        for (List<Long> chunk : chunks(subtreeIds)) {
+            freedSize += resourceRepository.sumConfirmedSizeInFolders(chunk);
+            trashedFiles += resourceRepository.moveFolderContentsToTrash(chunk, deletedAt);
+            folderRepository.moveToTrash(chunk, deletedAt);
+        }
+
+        if (freedSize > 0) {
+            userRepository.adjustStorageUsed(owner.getId(), -freedSize);
+            owner.setStorageUsed(owner.getStorageUsed() - freedSize);
+        }
+        storageQuotaService.invalidateStorageCache(owner.getId());
+        folderTreeCache.folderRemoved(folder);
+
+        log.info("Deleted folder {} with {} subfolders and {} files by user: {}",
+            folderId, subtreeIds.size() - 1, trashedFiles, owner.getUsername());
+    }
+
+    // Keeps IN lists within driver/database parameter limits
+    static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += IN_CLAUSE_CHUNK_SIZE) {
+            chunks.add(ids.subList(start, Math.min(start + IN_CLAUSE_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
     }
 
     @Transactional(readOnly = true)
-    public List<Folder> searchFolders(String query, User owner) {
-        List<Folder> allFolders = folderRepository.findAllByOwnerAndNotDeleted(owner);
-        String lowerQuery = query.toLowerCase();
-        
-        return allFolders.stream()
-            .filter(folder -> folder.getFolderName().toLowerCase().contains(lowerQuery))
-            .toList();
+    public Page<Folder> searchFolders(String query, User owner, int page, int size) {
+        String normalized = NameNormalizer.normalize(query);
+        if (normalized == null || normalized.isEmpty()) {
+            throw new RuntimeException("Search query is required");
+        }
+        return folderRepository.searchByNormalizedName(owner, NameNormalizer.escapeLike(normalized), PageRequest.of(page, size));
     }
 
     @Transactional(readOnly = true)
     public String getFullPath(Folder folder) {
-        List<String> pathParts = new ArrayList<>();
-        Folder current = folder;
-        
-        while (current != null) {
-            pathParts.add(0, current.getFolderName());
-            current = current.getParentFolder();
+        return getFullPaths(List.of(folder)).get(folder.getId());
+    }
+
+    // Name paths for many folders with a single query for all their ancestors
+    @Transactional(readOnly = true)
+    public Map<Long, String> getFullPaths(List<Folder> folders) {
+        Set<Long> ids = new HashSet<>();
+        for (Folder folder : folders) {
+            ids.addAll(folder.getPathIds());
         }
-        
-        return String.join("/", pathParts);
+        Map<Long, Folder> ancestors = loadFolders(ids);
+
+        Map<Long, String> paths = new HashMap<>();
+        for (Folder folder : folders) {
+            List<String> pathParts = new ArrayList<>();
+            for (Long id : folder.getPathIds()) {
+                Folder ancestor = ancestors.get(id);
+                if (ancestor != null) {
+                    pathParts.add(ancestor.getFolderName());
+                }
+            }
+            paths.put(folder.getId(), String.join("/", pathParts));
+        }
+        return paths;
+    }
+
+    /**
+     * Moves the folder under newParent (null for root) and rewrites the materialized path of the
+     * whole subtree with one UPDATE. Caller checks ownership, naming and cycles.
+     */
+    @Transactional
+    public Folder reparentSubtree(Folder folder, Folder newParent) {
+        String oldPath = folder.getPath();
+        String newPath = childPath(newParent, folder.getId());
+
+        Integer deepest = folderRepository.findMaxPathLength(oldPath);
+        if (deepest != null && deepest - oldPath.length() + newPath.length() > MAX_PATH_LENGTH) {
+            throw new RuntimeException("Folder nesting is too deep");
+        }
+
+        folder.setParentFolder(newParent);
+        folder.setPath(newPath);
+        folder = folderRepository.save(folder);
+        // Descendants only; the folder itself was saved above
+        folderRepository.rewritePathPrefix(oldPath, newPath, oldPath.length() + 1);
+        return folder;
     }
 
-    private boolean isCircularReference(Folder folder, Long targetId) {
-        Folder current = folder;
-        while (current != null) {
-            if (current.getId().equals(targetId)) {
-                return true;
+    // Folders created before the path column existed; walked in id order, off the startup thread
+    @Async("taskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillPaths() {
+        int updated = 0;
+        long lastId = 0;
+        List<Object[]> batch;
+        while (!(batch = folderRepository.findParentLinksWithoutPath(lastId, PageRequest.of(0, 1000))).isEmpty()) {
+            Map<Long, Long> pathless = new HashMap<>();
+            for (Object[] link : batch) {
+                pathless.put((Long) link[0], (Long) link[1]);
             }
-            current = current.getParentFolder();
+            // Ancestors resolved along the way are written too, so later pages skip them
+            updated += resolveMissingPaths(pathless).size();
+            lastId = (Long) batch.get(batch.size() - 1)[0];
+        }
+        pathsComplete = true;
+        if (updated > 0) {
+            folderTreeCache.evictAll();
+            log.info("Backfilled materialized paths for {} folders", updated);
         }
-        return false;
     }
 
-    private boolean isDescendant(Folder folder, Long ancestorId) {
-        Folder current = folder.getParentFolder();
-        while (current != null) {
-            if (current.getId().equals(ancestorId)) {
-                return true;
+    /**
+     * Gives the owner's folders a path before a write relies on it (subtree queries, cycle checks,
+     * tree patches). Only needed until the startup backfill has finished; callers invoke it before
+     * loading any folder, so the loaded entities see the stored paths.
+     */
+    @Transactional
+    public void ensurePaths(User owner) {
+        if (pathsComplete) {
+            return;
+        }
+        Map<Long, Long> pathless = new HashMap<>();
+        for (Object[] link : folderRepository.findParentLinksWithoutPathByOwner(owner)) {
+            pathless.put((Long) link[0], (Long) link[1]);
+        }
+        if (!pathless.isEmpty()) {
+            resolveMissingPaths(pathless);
+        }
+    }
+
+    /**
+     * Computes and stores paths for the given folders (id to parent id), looking up only the
+     * ancestors they need, one query per tree level. Returns every path it wrote, which includes
+     * pathless ancestors found on the way.
+     */
+    private Map<Long, String> resolveMissingPaths(Map<Long, Long> pathless) {
+        Map<Long, Long> parents = new HashMap<>(pathless);
+        Map<Long, String> paths = new HashMap<>();
+        Set<Long> requested = new HashSet<>(parents.keySet());
+        Set<Long> unknown = unrequestedParents(parents, requested);
+        while (!unknown.isEmpty()) {
+            requested.addAll(unknown);
+            for (Object[] link : folderRepository.findPathLinks(unknown)) {
+                if (link[2] != null) {
+                    paths.put((Long) link[0], (String) link[2]);
+                } else {
+                    parents.put((Long) link[0], (Long) link[1]);
+                }
             }
-            current = current.getParentFolder();
+            unknown = unrequestedParents(parents, requested);
         }
-        return false;
+
+        Map<Long, String> resolved = new HashMap<>();
+        for (Long id : parents.keySet()) {
+            resolved.put(id, resolvePath(id, parents, paths));
+        }
+        List<Object[]> rows = new ArrayList<>(resolved.size());
+        resolved.forEach((id, path) -> rows.add(new Object[] {path, id}));
+        jdbcTemplate.batchUpdate("UPDATE folders SET path = ? WHERE id = ? AND path IS NULL", rows);
+        return resolved;
     }
-}
 
+    private static Set<Long> unrequestedParents(Map<Long, Long> parents, Set<Long> requested) {
+        Set<Long> unknown = new HashSet<>();
+        for (Long parentId : parents.values()) {
+            if (parentId != null && !requested.contains(parentId)) {
+                unknown.add(parentId);
+            }
+        }
+        return unknown;
+    }
+
+    // Folders created before the normalized_name column existed; walked in id order, off the startup thread
+    @Async("taskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillNormalizedNames() {
+        int updated = 0;
+        long lastId = 0;
+        List<Object[]> batch;
+        while (!(batch = folderRepository.findNamesWithoutNormalizedName(lastId, PageRequest.of(0, 1000))).isEmpty()) {
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (Object[] row : batch) {
+                String normalized = NameNormalizer.normalize((String) row[1]);
+                rows.add(new Object[] {normalized != null ? normalized : "", row[0]});
+            }
+            jdbcTemplate.batchUpdate("UPDATE folders SET normalized_name = ? WHERE id = ?", rows);
+            updated += rows.size();
+            lastId = (Long) batch.get(batch.size() - 1)[0];
+        }
+        if (updated > 0) {
+            log.info("Backfilled normalized names for {} folders", updated);
+        }
+    }
+
+    private String resolvePath(Long id, Map<Long, Long> parents, Map<Long, String> paths) {
+        // Iterative walk up to the first resolved ancestor, so deep trees cannot overflow the stack
+        Deque<Long> chain = new ArrayDeque<>();
+        Long current = id;
+        while (current != null && !paths.containsKey(current) && !chain.contains(current)) {
+            chain.push(current);
+            current = parents.get(current);
+        }
+        String prefix = current != null && paths.containsKey(current) ? paths.get(current) : "/";
+        while (!chain.isEmpty()) {
+            Long next = chain.pop();
+            prefix = prefix + next + "/";
+            paths.put(next, prefix);
+        }
+        return paths.get(id);
+    }
+
+    private static String childPath(Folder parent, Long id) {
+        return (parent != null ? parent.getPath() : "/") + id + "/";
+    }
+
+    private Map<Long, Folder> loadFolders(Collection<Long> ids) {
+        Map<Long, Folder> folders = new HashMap<>();
+        for (Folder folder : folderRepository.findAllById(ids)) {
+            folders.put(folder.getId(), folder);
+        }
+        return folders;
+    }
+}
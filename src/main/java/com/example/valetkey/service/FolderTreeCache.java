@@ -0,0 +1,290 @@
+package com.example.valetkey.service;
+
+import com.example.valetkey.model.Folder;
+import com.example.valetkey.repository.FolderRepository;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per-user folder tree kept in the "folderTree" cache as immutable nodes.
+ *
+ * Writes patch the cached tree after their transaction commits instead of evicting it: only the
+ * nodes on the path to the change are copied (the path comes from Folder.getPathIds()), the rest
+ * of the tree is shared with the previous version. Anything the patch cannot place falls back to
+ * an eviction, and the next read rebuilds the tree with a single projection query.
+ */
+@Service
+public class FolderTreeCache {
+
+    private static final Logger log = LoggerFactory.getLogger(FolderTreeCache.class);
+
+    private static final Comparator<FolderTreeNode> BY_NAME = Comparator.comparing(FolderTreeNode::name);
+
+    @Autowired
+    private FolderRepository folderRepository;
+
+    private static final int MAX_TRACKED_USERS = 10000;
+
+    private final Cache cache;
+
+    // Cached trees carry the sequence number they were built or patched at
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Sequence number of each user's last committed change; users dropped from this LRU fall back to
+    // floor, which is never lower than their real last change
+    private final Map<Long, Long> lastChange = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+            if (size() > MAX_TRACKED_USERS) {
+                floor = Math.max(floor, eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private long floor;
+
+    private record CachedTree(long sequence, List<FolderTreeNode> roots) {
+    }
+
+    public record FolderTreeNode(Long id, String name,
+                                 @JsonInclude(JsonInclude.Include.NON_NULL) Long parentId, LocalDateTime createdAt,
+                                 LocalDateTime lastModified, List<FolderTreeNode> children) {
+
+        FolderTreeNode withChildren(List<FolderTreeNode> newChildren) {
+            return new FolderTreeNode(id, name, parentId, createdAt, lastModified, newChildren);
+        }
+    }
+
+    public FolderTreeCache(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache("folderTree");
+    }
+
+    public List<FolderTreeNode> getTree(Long userId) {
+        CachedTree cached = cache.get(userId, CachedTree.class);
+        if (cached != null && cached.sequence() >= lastChange(userId)) {
+            return cached.roots();
+        }
+
+        // A tree built from rows read before a concurrent commit carries an older sequence than that
+        // commit's change, so it is never served even if it lands in the cache afterwards
+        long start = sequence.get();
+        List<FolderTreeNode> tree = build(folderRepository.findTreeRowsByOwnerId(userId));
+        if (nativeCache() != null) {
+            nativeCache().merge(userId, new CachedTree(start, tree), (existing, built) ->
+                ((CachedTree) existing).sequence() >= start ? existing : built);
+        } else {
+            cache.put(userId, new CachedTree(start, tree));
+        }
+        return tree;
+    }
+
+    public void folderCreated(Folder folder) {
+        FolderTreeNode node = new FolderTreeNode(folder.getId(), folder.getFolderName(), parentId(folder),
+            folder.getCreatedAt(), folder.getLastModified(), List.of());
+        patchAfterCommit(folder.getOwner().getId(), tree ->
+            editChildren(tree, parentPathIds(folder), children -> insertSorted(children, node)));
+    }
+
+    public void folderRenamed(Folder folder) {
+        patchAfterCommit(folder.getOwner().getId(), tree ->
+            editChildren(tree, parentPathIds(folder), children -> {
+                FolderTreeNode existing = find(children, folder.getId());
+                if (existing == null) {
+                    return null;
+                }
+                FolderTreeNode renamed = new FolderTreeNode(existing.id(), folder.getFolderName(), existing.parentId(),
+                    existing.createdAt(), folder.getLastModified(), existing.children());
+                return insertSorted(without(children, folder.getId()), renamed);
+            }));
+    }
+
+    // oldPathIds: the folder's path ids before the move (including its own id)
+    public void folderMoved(Folder folder, List<Long> oldPathIds) {
+        patchAfterCommit(folder.getOwner().getId(), tree -> {
+            List<Long> oldParentPath = oldPathIds.subList(0, oldPathIds.size() - 1);
+            FolderTreeNode[] moved = new FolderTreeNode[1];
+            List<FolderTreeNode> detached = editChildren(tree, oldParentPath, children -> {
+                moved[0] = find(children, folder.getId());
+                return moved[0] != null ? without(children, folder.getId()) : null;
+            });
+            if (detached == null) {
+                return null;
+            }
+            FolderTreeNode node = new FolderTreeNode(moved[0].id(), moved[0].name(), parentId(folder),
+                moved[0].createdAt(), folder.getLastModified(), moved[0].children());
+            return editChildren(detached, parentPathIds(folder), children -> insertSorted(children, node));
+        });
+    }
+
+    public void folderRemoved(Folder folder) {
+        patchAfterCommit(folder.getOwner().getId(), tree ->
+            editChildren(tree, parentPathIds(folder), children ->
+                find(children, folder.getId()) != null ? without(children, folder.getId()) : null));
+    }
+
+    public void evict(Long userId) {
+        runAfterCommit(() -> {
+            recordChange(userId);
+            cache.evict(userId);
+        });
+    }
+
+    public void evictAll() {
+        synchronized (lastChange) {
+            floor = sequence.incrementAndGet();
+            lastChange.clear();
+        }
+        cache.clear();
+    }
+
+    private void patchAfterCommit(Long userId, UnaryOperator<List<FolderTreeNode>> patch) {
+        runAfterCommit(() -> {
+            ConcurrentMap<Object, Object> nativeCache = nativeCache();
+            if (nativeCache == null) {
+                recordChange(userId);
+                cache.evict(userId);
+                return;
+            }
+            // Atomic per user; only a tree that was current before this change is patched, anything
+            // else (stale or unpatchable) is dropped so the next read rebuilds it
+            nativeCache.compute(userId, (key, value) -> {
+                long previous = lastChange(userId);
+                long changed = recordChange(userId);
+                if (!(value instanceof CachedTree cached) || cached.sequence() < previous) {
+                    return null;
+                }
+                List<FolderTreeNode> patched = patch.apply(cached.roots());
+                if (patched == null) {
+                    log.debug("Folder tree patch did not apply for user {}, evicting", userId);
+                    return null;
+                }
+                return new CachedTree(changed, patched);
+            });
+        });
+    }
+
+    private long recordChange(Long userId) {
+        synchronized (lastChange) {
+            long changed = sequence.incrementAndGet();
+            lastChange.put(userId, changed);
+            return changed;
+        }
+    }
+
+    private long lastChange(Long userId) {
+        synchronized (lastChange) {
+            Long changed = lastChange.get(userId);
+            return changed != null ? changed : floor;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<Object, Object> nativeCache() {
+        return cache.getNativeCache() instanceof ConcurrentMap<?, ?> nativeCache
+            ? (ConcurrentMap<Object, Object>) nativeCache
+            : null;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Applies edit to the child list of the node at the end of parentPath (the root list when the
+     * path is empty) and copies the nodes along the path. Returns null if the path or the edit
+     * does not match the cached tree.
+     */
+    private List<FolderTreeNode> editChildren(List<FolderTreeNode> siblings, List<Long> parentPath,
+                                              UnaryOperator<List<FolderTreeNode>> edit) {
+        if (parentPath.isEmpty()) {
+            return edit.apply(siblings);
+        }
+        FolderTreeNode next = find(siblings, parentPath.get(0));
+        if (next == null) {
+            return null;
+        }
+        List<FolderTreeNode> children = editChildren(next.children(), parentPath.subList(1, parentPath.size()), edit);
+        if (children == null) {
+            return null;
+        }
+        return replace(siblings, next.withChildren(children));
+    }
+
+    private List<FolderTreeNode> build(List<Object[]> rows) {
+        Map<Long, List<Object[]>> byParent = new HashMap<>();
+        for (Object[] row : rows) {
+            byParent.computeIfAbsent((Long) row[2], k -> new ArrayList<>()).add(row);
+        }
+        return buildChildren(null, byParent);
+    }
+
+    private List<FolderTreeNode> buildChildren(Long parentId, Map<Long, List<Object[]>> byParent) {
+        List<Object[]> rows = byParent.getOrDefault(parentId, List.of());
+        List<FolderTreeNode> nodes = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            nodes.add(new FolderTreeNode(id, (String) row[1], parentId, (LocalDateTime) row[3],
+                (LocalDateTime) row[4], buildChildren(id, byParent)));
+        }
+        nodes.sort(BY_NAME);
+        return List.copyOf(nodes);
+    }
+
+    private static FolderTreeNode find(List<FolderTreeNode> nodes, Long id) {
+        for (FolderTreeNode node : nodes) {
+            if (node.id().equals(id)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private static List<FolderTreeNode> without(List<FolderTreeNode> nodes, Long id) {
+        return nodes.stream().filter(node -> !node.id().equals(id)).toList();
+    }
+
+    private static List<FolderTreeNode> replace(List<FolderTreeNode> nodes, FolderTreeNode replacement) {
+        return nodes.stream().map(node -> node.id().equals(replacement.id()) ? replacement : node).toList();
+    }
+
+    private static List<FolderTreeNode> insertSorted(List<FolderTreeNode> nodes, FolderTreeNode node) {
+        List<FolderTreeNode> result = new ArrayList<>(nodes.size() + 1);
+        result.addAll(without(nodes, node.id()));
+        result.add(node);
+        result.sort(BY_NAME);
+        return List.copyOf(result);
+    }
+
+    private static Long parentId(Folder folder) {
+        return folder.getParentFolder() != null ? folder.getParentFolder().getId() : null;
+    }
+
+    private static List<Long> parentPathIds(Folder folder) {
+        List<Long> pathIds = folder.getPathIds();
+        return pathIds.isEmpty() ? pathIds : pathIds.subList(0, pathIds.size() - 1);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.valetkey.service;
+
+import com.example.valetkey.model.ObjectDeletion;
+import com.example.valetkey.repository.ObjectDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transactional outbox for S3 object deletions. Callers enqueue keys inside the transaction
+ * that removes the metadata rows, so either both happen or neither does, and no S3 call runs
+ * while a DB connection is held. A scheduled drainer deletes due keys with batched
+ * DeleteObjects and reschedules failures with exponential backoff.
+ */
+@Service
+public class ObjectDeletionOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(ObjectDeletionOutbox.class);
+
+    private static final String INSERT_SQL =
+        "INSERT INTO object_deletion_outbox (object_key, attempts, created_at, next_attempt_at) VALUES (?, 0, ?, ?)";
+
+    private final ObjectDeletionRepository objectDeletionRepository;
+
+    @Autowired
+    private AWSS3Service awsS3Service;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${storage.deletion-outbox.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${storage.deletion-outbox.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${storage.deletion-outbox.retry-max-seconds:3600}")
+    private long retryMaxSeconds;
+
+    private final Counter deleted;
+    private final Counter failed;
+
+    public ObjectDeletionOutbox(MeterRegistry meterRegistry, ObjectDeletionRepository objectDeletionRepository) {
+        this.objectDeletionRepository = objectDeletionRepository;
+        this.deleted = Counter.builder("valetkey.deletion.outbox")
+                .tag("result", "deleted")
+                .description("S3 objects processed by the deletion outbox")
+                .register(meterRegistry);
+        this.failed = Counter.builder("valetkey.deletion.outbox")
+                .tag("result", "failed")
+                .description("S3 objects processed by the deletion outbox")
+                .register(meterRegistry);
+        Gauge.builder("valetkey.deletion.outbox.pending", objectDeletionRepository, ObjectDeletionRepository::countPending)
+                .description("S3 object deletions waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    // Must join the caller's transaction: the rows are only visible to the drainer once it commits
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Collection<String> objectKeys) {
+        if (objectKeys.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(objectKeys.size());
+        for (String objectKey : objectKeys) {
+            rows.add(new Object[] {objectKey, now, now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Scheduled(fixedDelayString = "${storage.deletion-outbox.drain-interval-ms:5000}",
+               initialDelayString = "${storage.deletion-outbox.initial-delay-ms:30000}")
+    public void drain() {
+        // One batch per run; S3 deletes are idempotent, so a row picked up twice is harmless
+        List<ObjectDeletion> due = objectDeletionRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> failedKeys = awsS3Service.deleteObjects(
+            due.stream().map(ObjectDeletion::getObjectKey).toList());
+
+        List<Long> doneIds = new ArrayList<>();
+        List<ObjectDeletion> retries = new ArrayList<>();
+        for (ObjectDeletion deletion : due) {
+            String error = failedKeys.get(deletion.getObjectKey());
+            if (error == null) {
+                doneIds.add(deletion.getId());
+            } else {
+                int attempts = deletion.getAttempts() + 1;
+                long delaySeconds = Math.min(retryMaxSeconds, retryBaseSeconds << Math.min(attempts - 1, 16));
+                deletion.setAttempts(attempts);
+                deletion.setLastError(error.length() > 1024 ? error.substring(0, 1024) : error);
+                deletion.setNextAttemptAt(LocalDateTime.now().plusSeconds(delaySeconds));
+                retries.add(deletion);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!doneIds.isEmpty()) {
+                objectDeletionRepository.deleteAllByIdInBatch(doneIds);
+            }
+            objectDeletionRepository.saveAll(retries);
+        });
+
+        deleted.increment(doneIds.size());
+        failed.increment(retries.size());
+        if (!retries.isEmpty()) {
+            log.warn("Deletion outbox: {} objects failed, first error: {}", retries.size(), retries.get(0).getLastError());
+        }
+        log.debug("Deletion outbox: deleted {} objects", doneIds.size());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.valetkey.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of presigned GET URLs keyed by object key and expiry window.
+ * A URL is handed out again while more than {@code aws.s3.url-cache.min-remaining-fraction}
+ * of its signed lifetime is left, so repeated clicks on the same (public) file reuse one signature.
+ * Entries are grouped per object key (eviction is a single removal) and the least recently used
+ * objects are dropped once {@code aws.s3.url-cache.max-entries} is reached.
+ */
+@Service
+public class PresignedUrlCache {
+
+    @Value("${aws.s3.url-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${aws.s3.url-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${aws.s3.url-cache.min-remaining-fraction:0.5}")
+    private double minRemainingFraction;
+
+    // objectKey -> expiry window -> URL, so evicting an object is one removal; LRU-bounded by object count
+    private Map<String, Map<Integer, CachedUrl>> cache;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    private record CachedUrl(String url, long issuedAtMillis, long expiresAtMillis) {
+    }
+
+    public PresignedUrlCache(MeterRegistry meterRegistry) {
+        this.hits = Counter.builder("valetkey.presigned.url.cache")
+                .tag("result", "hit")
+                .description("Presigned download URL cache lookups")
+                .register(meterRegistry);
+        this.misses = Counter.builder("valetkey.presigned.url.cache")
+                .tag("result", "miss")
+                .description("Presigned download URL cache lookups")
+                .register(meterRegistry);
+        Gauge.builder("valetkey.presigned.url.cache.size", this, PresignedUrlCache::size)
+                .description("Objects with presigned download URLs currently cached")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedLruMap<>(maxEntries);
+    }
+
+    public String get(String objectKey, int expiryMinutes) {
+        if (!enabled) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Map<Integer, CachedUrl> variants = cache.get(objectKey);
+            CachedUrl cached = variants != null ? variants.get(expiryMinutes) : null;
+            if (cached != null) {
+                long lifetime = cached.expiresAtMillis() - cached.issuedAtMillis();
+                if (cached.expiresAtMillis() - now > lifetime * minRemainingFraction) {
+                    hits.increment();
+                    return cached.url();
+                }
+                variants.remove(expiryMinutes);
+                if (variants.isEmpty()) {
+                    cache.remove(objectKey);
+                }
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String objectKey, int expiryMinutes, String url) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        CachedUrl entry = new CachedUrl(url, now, now + expiryMinutes * 60_000L);
+        synchronized (this) {
+            cache.computeIfAbsent(objectKey, key -> new HashMap<>(2)).put(expiryMinutes, entry);
+        }
+    }
+
+    public synchronized void evict(String objectKey) {
+        cache.remove(objectKey);
+    }
+
+    private synchronized int size() {
+        return cache != null ? cache.size() : 0;
+    }
+}
@@ -7,11 +7,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class SQSService {
@@ -26,6 +34,12 @@ public class SQSService {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // SQS accepts at most 10 entries per SendMessageBatch call
+    private static final int MAX_BATCH_ENTRIES = 10;
+
+    public record BackupMessage(Long resourceId, String objectKey, Long fileSize) {
+    }
+
     public void sendBackupMessage(Long resourceId, String objectKey, Long fileSize) {
         if (queueUrl == null || queueUrl.isEmpty()) {
             log.warn("SQS queue URL not configured. Skipping backup message.");
@@ -56,5 +70,56 @@ public class SQSService {
             throw new RuntimeException("Failed to send backup message: " + e.getMessage(), e);
         }
     }
-}
 
+    /**
+     * Sends backup messages with SendMessageBatch, 10 per call.
+     * Returns the resource ids whose messages could not be enqueued.
+     */
+    public Set<Long> sendBackupMessages(List<BackupMessage> messages) {
+        Set<Long> failed = new HashSet<>();
+        if (messages.isEmpty()) {
+            return failed;
+        }
+        if (queueUrl == null || queueUrl.isEmpty()) {
+            log.warn("SQS queue URL not configured. Skipping {} backup messages.", messages.size());
+            return failed;
+        }
+
+        for (int start = 0; start < messages.size(); start += MAX_BATCH_ENTRIES) {
+            List<BackupMessage> chunk = messages.subList(start, Math.min(start + MAX_BATCH_ENTRIES, messages.size()));
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>(chunk.size());
+            try {
+                for (BackupMessage message : chunk) {
+                    Map<String, Object> messageBody = new HashMap<>();
+                    messageBody.put("resourceId", message.resourceId());
+                    messageBody.put("objectKey", message.objectKey());
+                    messageBody.put("fileSize", message.fileSize());
+                    messageBody.put("timestamp", System.currentTimeMillis());
+
+                    entries.add(SendMessageBatchRequestEntry.builder()
+                            .id(String.valueOf(message.resourceId()))
+                            .messageBody(objectMapper.writeValueAsString(messageBody))
+                            .build());
+                }
+
+                SendMessageBatchResponse response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                        .queueUrl(queueUrl)
+                        .entries(entries)
+                        .build());
+
+                for (BatchResultErrorEntry error : response.failed()) {
+                    log.error("Failed to enqueue backup message for resourceId {}: {} {}",
+                            error.id(), error.code(), error.message());
+                    failed.add(Long.valueOf(error.id()));
+                }
+            } catch (Exception e) {
+                log.error("Failed to send backup message batch to SQS: {}", e.getMessage(), e);
+                chunk.forEach(message -> failed.add(message.resourceId()));
+            }
+        }
+
+        log.info("Backup messages sent to SQS in batches: {} sent, {} failed",
+                messages.size() - failed.size(), failed.size());
+        return failed;
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.valetkey.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsSessionCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * In-process AWS Signature V4 query-string presigner for S3 GET/PUT URLs.
+ *
+ * Presigning is pure HMAC work, so this avoids the SDK presigner object graph per call:
+ * the derived signing key is cached per day and region, and canonical requests are built
+ * into per-thread buffers. Region and credentials come from the AWSConfig beans; only static
+ * credentials (aws.s3.access-key / secret-key) are supported, so with provider-chain credentials
+ * the engine stays disabled and callers fall back to the SDK {@link S3Presigner}.
+ *
+ * On startup the engine signs probe keys at the same instant as the SDK and compares the
+ * full URLs. Any mismatch disables it, so its output is always byte-identical to the SDK's.
+ */
+@Service
+public class SigV4Presigner {
+
+    private static final Logger log = LoggerFactory.getLogger(SigV4Presigner.class);
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String SERVICE = "s3";
+    private static final String TERMINATOR = "aws4_request";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String PROBE_KEY = "presign-self-check/probe file+1.txt";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    @Autowired
+    private S3Presigner s3Presigner;
+
+    @Value("${aws.s3.bucket-name:valet-demo}")
+    private String bucketName;
+
+    @Autowired
+    private Region awsRegion;
+
+    @Autowired
+    private AwsCredentialsProvider awsCredentialsProvider;
+
+    @Value("${aws.s3.presign.local-signer.enabled:true}")
+    private boolean localSignerEnabled;
+
+    // Taken from the AWSConfig beans at startup, only when the credentials are static
+    private String region;
+    private String accessKey;
+    private String secretKey;
+
+    // Resolved from the SDK probe URL so host/path style always match the SDK endpoint rules
+    private String endpointBase;
+    private String host;
+    private String pathPrefix;
+
+    private volatile boolean enabled = false;
+    private volatile SigningKey cachedSigningKey;
+
+    private final ThreadLocal<StringBuilder> canonicalBuffer = ThreadLocal.withInitial(() -> new StringBuilder(512));
+    private final ThreadLocal<StringBuilder> urlBuffer = ThreadLocal.withInitial(() -> new StringBuilder(512));
+    private final ThreadLocal<MessageDigest> sha256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+    private final ThreadLocal<Mac> hmac = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance("HmacSHA256");
+        } catch (Exception e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    });
+
+    private record SigningKey(String dateStamp, String region, SecretKeySpec key) {
+    }
+
+    @PostConstruct
+    void init() {
+        if (!localSignerEnabled) {
+            log.info("Local SigV4 presigner disabled by configuration, using SDK presigner");
+            return;
+        }
+        if (!(awsCredentialsProvider instanceof StaticCredentialsProvider)) {
+            log.info("Local SigV4 presigner requires static credentials, using SDK presigner");
+            return;
+        }
+        AwsCredentials credentials = awsCredentialsProvider.resolveCredentials();
+        if (credentials instanceof AwsSessionCredentials) {
+            log.info("Local SigV4 presigner does not sign session credentials, using SDK presigner");
+            return;
+        }
+        region = awsRegion.id();
+        accessKey = credentials.accessKeyId();
+        secretKey = credentials.secretAccessKey();
+        try {
+            enabled = verifyAgainstSdk();
+        } catch (Exception e) {
+            log.warn("Local SigV4 presigner self-check failed, using SDK presigner: {}", e.getMessage());
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String presignGet(String objectKey, Duration expiry) {
+        return presign("GET", objectKey, expiry.getSeconds(), Instant.now());
+    }
+
+    public String presignPut(String objectKey, Duration expiry) {
+        return presign("PUT", objectKey, expiry.getSeconds(), Instant.now());
+    }
+
+    String presign(String method, String objectKey, long expirySeconds, Instant signingTime) {
+        LocalDateTime utc = LocalDateTime.ofEpochSecond(signingTime.getEpochSecond(), 0, ZoneOffset.UTC);
+
+        StringBuilder canonical = canonicalBuffer.get();
+        canonical.setLength(0);
+
+        appendAmzDate(canonical, utc);
+        String amzDate = canonical.toString();
+        String dateStamp = amzDate.substring(0, 8);
+        canonical.setLength(0);
+
+        String credential = accessKey + "/" + dateStamp + "/" + region + "/" + SERVICE + "/" + TERMINATOR;
+        String expires = Long.toString(expirySeconds);
+
+        // Canonical request: sorted query parameters, host as the only signed header
+        canonical.append(method).append('\n');
+        canonical.append(pathPrefix);
+        appendEncoded(canonical, objectKey, true);
+        canonical.append('\n');
+        canonical.append("X-Amz-Algorithm=").append(ALGORITHM);
+        canonical.append("&X-Amz-Credential=");
+        appendEncoded(canonical, credential, false);
+        canonical.append("&X-Amz-Date=").append(amzDate);
+        canonical.append("&X-Amz-Expires=").append(expires);
+        canonical.append("&X-Amz-SignedHeaders=host\n");
+        canonical.append("host:").append(host).append("\n\n");
+        canonical.append("host\n");
+        canonical.append(UNSIGNED_PAYLOAD);
+
+        MessageDigest digest = sha256.get();
+        byte[] canonicalHash = digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+
+        canonical.setLength(0);
+        canonical.append(ALGORITHM).append('\n');
+        canonical.append(amzDate).append('\n');
+        canonical.append(dateStamp).append('/').append(region).append('/').append(SERVICE).append('/').append(TERMINATOR).append('\n');
+        appendHex(canonical, canonicalHash);
+
+        byte[] signature = sign(signingKey(dateStamp), canonical.toString());
+
+        StringBuilder url = urlBuffer.get();
+        url.setLength(0);
+        url.append(endpointBase).append(pathPrefix);
+        appendEncoded(url, objectKey, true);
+        url.append("?X-Amz-Algorithm=").append(ALGORITHM);
+        url.append("&X-Amz-Date=").append(amzDate);
+        url.append("&X-Amz-SignedHeaders=host");
+        url.append("&X-Amz-Expires=").append(expires);
+        url.append("&X-Amz-Credential=");
+        appendEncoded(url, credential, false);
+        url.append("&X-Amz-Signature=");
+        appendHex(url, signature);
+        return url.toString();
+    }
+
+    private SecretKeySpec signingKey(String dateStamp) {
+        SigningKey current = cachedSigningKey;
+        if (current != null && current.dateStamp().equals(dateStamp) && current.region().equals(region)) {
+            return current.key();
+        }
+        byte[] kDate = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), dateStamp);
+        byte[] kRegion = hmac(kDate, region);
+        byte[] kService = hmac(kRegion, SERVICE);
+        byte[] kSigning = hmac(kService, TERMINATOR);
+        SecretKeySpec key = new SecretKeySpec(kSigning, "HmacSHA256");
+        cachedSigningKey = new SigningKey(dateStamp, region, key);
+        log.debug("Derived SigV4 signing key for {} / {}", dateStamp, region);
+        return key;
+    }
+
+    private byte[] hmac(byte[] key, String data) {
+        return sign(new SecretKeySpec(key, "HmacSHA256"), data);
+    }
+
+    private byte[] sign(SecretKeySpec key, String data) {
+        try {
+            Mac mac = hmac.get();
+            mac.init(key);
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compute SigV4 signature: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean verifyAgainstSdk() {
+        Duration probeExpiry = Duration.ofMinutes(10);
+        String sdkGet = s3Presigner.presignGetObject(GetObjectPresignRequest.builder()
+                .signatureDuration(probeExpiry)
+                .getObjectRequest(GetObjectRequest.builder().bucket(bucketName).key(PROBE_KEY).build())
+                .build()).url().toString();
+
+        URI uri = URI.create(sdkGet);
+        StringBuilder encodedKey = new StringBuilder();
+        appendEncoded(encodedKey, PROBE_KEY, true);
+        String rawPath = uri.getRawPath();
+        if (!rawPath.endsWith(encodedKey.toString())) {
+            log.warn("Local SigV4 presigner disabled: unexpected SDK URL path {}", rawPath);
+            return false;
+        }
+        pathPrefix = rawPath.substring(0, rawPath.length() - encodedKey.length());
+        host = uri.getRawAuthority();
+        endpointBase = uri.getScheme() + "://" + host;
+
+        String localGet = presign("GET", PROBE_KEY, signedExpiry(uri.getRawQuery()), signingTime(uri.getRawQuery()));
+        if (!sdkGet.equals(localGet)) {
+            log.warn("Local SigV4 presigner disabled: GET URL differs from SDK output. sdk={}, local={}", sdkGet, localGet);
+            return false;
+        }
+
+        String sdkPut = s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(probeExpiry)
+                .putObjectRequest(PutObjectRequest.builder().bucket(bucketName).key(PROBE_KEY).build())
+                .build()).url().toString();
+        String putQuery = URI.create(sdkPut).getRawQuery();
+        String localPut = presign("PUT", PROBE_KEY, signedExpiry(putQuery), signingTime(putQuery));
+        if (!sdkPut.equals(localPut)) {
+            log.warn("Local SigV4 presigner disabled: PUT URL differs from SDK output. sdk={}, local={}", sdkPut, localPut);
+            return false;
+        }
+
+        log.info("Local SigV4 presigner enabled for bucket {} ({})", bucketName, endpointBase);
+        return true;
+    }
+
+    private Instant signingTime(String rawQuery) {
+        return Instant.from(AMZ_DATE.parse(queryParam(rawQuery, "X-Amz-Date")));
+    }
+
+    // The SDK derives X-Amz-Expires from a sub-second clock, so it is one second short when signing straddles a second
+    private long signedExpiry(String rawQuery) {
+        return Long.parseLong(queryParam(rawQuery, "X-Amz-Expires"));
+    }
+
+    private String queryParam(String rawQuery, String name) {
+        for (String param : rawQuery.split("&")) {
+            if (param.startsWith(name + "=")) {
+                return param.substring(name.length() + 1);
+            }
+        }
+        throw new IllegalStateException(name + " missing from SDK presigned URL");
+    }
+
+    private static void appendAmzDate(StringBuilder sb, LocalDateTime utc) {
+        appendPadded(sb, utc.getYear(), 4);
+        appendPadded(sb, utc.getMonthValue(), 2);
+        appendPadded(sb, utc.getDayOfMonth(), 2);
+        sb.append('T');
+        appendPadded(sb, utc.getHour(), 2);
+        appendPadded(sb, utc.getMinute(), 2);
+        appendPadded(sb, utc.getSecond(), 2);
+        sb.append('Z');
+    }
+
+    private static void appendPadded(StringBuilder sb, int value, int width) {
+        String digits = Integer.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            sb.append('0');
+        }
+        sb.append(digits);
+    }
+
+    // RFC 3986 encoding as used by SigV4: unreserved characters pass through, optionally '/'
+    private static void appendEncoded(StringBuilder sb, String value, boolean keepSlash) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            int c = b & 0xff;
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (keepSlash && c == '/')) {
+                sb.append((char) c);
+            } else {
+                sb.append('%').append(HEX_UPPER[c >> 4]).append(HEX_UPPER[c & 0x0f]);
+            }
+        }
+    }
+
+    private static void appendHex(StringBuilder sb, byte[] bytes) {
+        for (byte b : bytes) {
+            sb.append(HEX[(b >> 4) & 0x0f]).append(HEX[b & 0x0f]);
+        }
+    }
+}
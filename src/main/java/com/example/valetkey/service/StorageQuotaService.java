@@ -17,10 +17,13 @@ public class StorageQuotaService {
     @Autowired
     private ResourceRepository resourceRepository;
 
+    @Autowired
+    private UserContext userContext;
+
     @Cacheable(value = "storageQuota", key = "#user.id")
     public Long getStorageUsed(User user) {
         log.debug("Cache miss - querying DB for storage used by user: {}", user.getUsername());
-        Long storageUsed = resourceRepository.getTotalStorageUsedByUser(user);
+        Long storageUsed = resourceRepository.getConfirmedStorageUsedByUser(user);
         return storageUsed != null ? storageUsed : 0L;
     }
 
@@ -52,11 +55,13 @@ public class StorageQuotaService {
     @CacheEvict(value = "storageQuota", key = "#userId")
     public void invalidateStorageCache(Long userId) {
         log.debug("Invalidating storage cache for user ID: {}", userId);
+        userContext.evict(userId);
     }
 
     @CacheEvict(value = "storageQuota", allEntries = true)
     public void invalidateAllStorageCaches() {
         log.info("Invalidating all storage quota caches");
+        userContext.evictAll();
     }
 
     public String formatBytes(Long bytes) {
@@ -0,0 +1,89 @@
+package com.example.valetkey.service;
+
+import com.example.valetkey.model.TempDownload;
+import com.example.valetkey.repository.TempDownloadRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks bulk-download archives written under temp-downloads/ and deletes them once expired.
+ * Expired keys come from the temp_downloads index and are removed with DeleteObjects,
+ * so the sweep costs one query plus one S3 request per 1,000 archives.
+ */
+@Service
+public class TempDownloadService {
+
+    private static final Logger log = LoggerFactory.getLogger(TempDownloadService.class);
+
+    @Autowired
+    private TempDownloadRepository tempDownloadRepository;
+
+    @Autowired
+    private AWSS3Service awsS3Service;
+
+    // Kept past the presigned URL expiry so a download started just before expiry can finish
+    @Value("${temp-downloads.grace-minutes:10}")
+    private long graceMinutes;
+
+    @Value("${temp-downloads.sweep-batch-size:1000}")
+    private int sweepBatchSize;
+
+    private final Counter reclaimedBytes;
+    private final Counter deletedObjects;
+
+    public TempDownloadService(MeterRegistry meterRegistry) {
+        this.reclaimedBytes = Counter.builder("valetkey.temp_downloads.reclaimed.bytes")
+                .description("Bytes of expired bulk-download archives deleted from S3")
+                .register(meterRegistry);
+        this.deletedObjects = Counter.builder("valetkey.temp_downloads.deleted")
+                .description("Expired bulk-download archives deleted from S3")
+                .register(meterRegistry);
+    }
+
+    // Own transaction so callers inside read-only transactions can still record the archive
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public TempDownload register(String objectKey, Long userId, long sizeBytes, LocalDateTime expiresAt) {
+        return tempDownloadRepository.save(
+            new TempDownload(objectKey, userId, sizeBytes, expiresAt.plusMinutes(graceMinutes)));
+    }
+
+    @Scheduled(fixedDelayString = "${temp-downloads.sweep-interval-ms:600000}",
+               initialDelayString = "${temp-downloads.sweep-initial-delay-ms:120000}")
+    public void sweepExpiredDownloads() {
+        // One batch per run; anything left over (or failed) is picked up by the next run
+        List<TempDownload> expired = tempDownloadRepository.findExpired(LocalDateTime.now(), PageRequest.of(0, sweepBatchSize));
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> failed = awsS3Service.deleteObjects(
+            expired.stream().map(TempDownload::getObjectKey).toList());
+
+        List<TempDownload> deleted = expired.stream()
+            .filter(t -> !failed.containsKey(t.getObjectKey()))
+            .toList();
+        long bytes = deleted.stream().mapToLong(TempDownload::getSizeBytes).sum();
+
+        if (!deleted.isEmpty()) {
+            tempDownloadRepository.deleteAllByIdInBatch(deleted.stream().map(TempDownload::getId).toList());
+            reclaimedBytes.increment(bytes);
+            deletedObjects.increment(deleted.size());
+        }
+
+        failed.forEach((key, error) -> log.warn("Failed to delete expired archive {}: {}", key, error));
+        log.info("Temp download sweep: deleted {} archives ({} bytes), {} failed", deleted.size(), bytes, failed.size());
+    }
+}
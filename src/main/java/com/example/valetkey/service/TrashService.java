@@ -0,0 +1,318 @@
+package com.example.valetkey.service;
+
+import com.example.valetkey.model.Folder;
+import com.example.valetkey.model.Resource;
+import com.example.valetkey.model.User;
+import com.example.valetkey.repository.FolderRepository;
+import com.example.valetkey.repository.ResourceRepository;
+import com.example.valetkey.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Recycle bin. Trashing and restoring are single UPDATE statements plus one storage_used
+ * adjustment (trashed files do not count against the quota). Permanent removal (purge, empty
+ * trash, and the retention purger) deletes rows in batches and hands the object keys to the
+ * deletion outbox, so no request waits on S3.
+ */
+@Service
+public class TrashService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrashService.class);
+
+    @Autowired
+    private ResourceRepository resourceRepository;
+
+    @Autowired
+    private FolderRepository folderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FolderService folderService;
+
+    @Autowired
+    private FolderTreeCache folderTreeCache;
+
+    @Autowired
+    private StorageQuotaService storageQuotaService;
+
+    @Autowired
+    private ObjectDeletionOutbox objectDeletionOutbox;
+
+    @Autowired
+    private FileNameIndexService fileNameIndexService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${trash.retention-days:30}")
+    private long retentionDays;
+
+    @Value("${trash.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    @Value("${trash.purge-max-batches-per-run:20}")
+    private int purgeMaxBatchesPerRun;
+
+    @Transactional
+    public Map<String, Object> trashFiles(List<Long> fileIds, User user) {
+        long freedSize = resourceRepository.sumConfirmedSizeByIdsAndUploader(fileIds, user, false);
+        int trashed = resourceRepository.moveToTrash(fileIds, user, LocalDateTime.now());
+
+        if (trashed > 0) {
+            userRepository.adjustStorageUsed(user.getId(), -freedSize);
+            user.setStorageUsed(user.getStorageUsed() - freedSize);
+            storageQuotaService.invalidateStorageCache(user.getId());
+        }
+
+        log.info("Moved {} files to trash by user: {}", trashed, user.getUsername());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("trashed", trashed);
+        result.put("notFound", fileIds.stream().distinct().count() - trashed);
+        result.put("freedSize", freedSize);
+        return result;
+    }
+
+    @Transactional
+    public Map<String, Object> restoreFiles(List<Long> fileIds, User user) {
+        long restoredSize = resourceRepository.sumConfirmedSizeByIdsAndUploader(fileIds, user, true);
+
+        Long quota = user.getStorageQuota();
+        if (quota != null && user.getStorageUsed() + restoredSize > quota) {
+            throw new RuntimeException("Not enough storage to restore these files. Required: " +
+                storageQuotaService.formatBytes(restoredSize) + ", Available: " +
+                storageQuotaService.formatBytes(user.getRemainingStorage()));
+        }
+
+        // Files whose folder is still in the trash go back to the root so they stay reachable
+        List<Resource> orphaned = resourceRepository.findDeletedByIdsAndUploader(fileIds, user).stream()
+            .filter(r -> r.getFolder() != null && r.getFolder().isDeleted())
+            .toList();
+        for (Resource resource : orphaned) {
+            resource.setFolder(null);
+        }
+        resourceRepository.saveAll(orphaned);
+
+        int restored = resourceRepository.restoreFromTrash(fileIds, user);
+        if (restored > 0) {
+            userRepository.adjustStorageUsed(user.getId(), restoredSize);
+            user.setStorageUsed(user.getStorageUsed() + restoredSize);
+            storageQuotaService.invalidateStorageCache(user.getId());
+        }
+
+        log.info("Restored {} files from trash by user: {}", restored, user.getUsername());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("restored", restored);
+        result.put("restoredSize", restoredSize);
+        return result;
+    }
+
+    // Restores the folder together with everything that was trashed with it (same deletedAt)
+    @Transactional
+    public Folder restoreFolder(Long folderId, User user) {
+        folderService.ensurePaths(user);
+        Folder folder = folderRepository.findByIdAndOwner(folderId, user)
+            .orElseThrow(() -> new RuntimeException("Folder not found"));
+        if (!folder.isDeleted()) {
+            throw new RuntimeException("Folder is not in trash");
+        }
+
+        boolean parentTrashed = folder.getParentFolder() != null && folder.getParentFolder().isDeleted();
+        Folder restoreParent = parentTrashed ? null : folder.getParentFolder();
+        boolean nameTaken = restoreParent != null
+            ? folderRepository.existsByOwnerAndParentFolderAndFolderName(user, restoreParent, folder.getFolderName())
+            : folderRepository.existsRootFolderByOwnerAndFolderName(user, folder.getFolderName());
+        if (nameTaken) {
+            throw new RuntimeException("A folder with this name already exists in the restore location");
+        }
+
+        LocalDateTime deletedAt = folder.getDeletedAt();
+        List<List<Long>> chunks = FolderService.chunks(folderRepository.findSubtreeIds(folder.getPath()));
+
+        long restoredSize = 0;
+        for (List<Long> chunk : chunks) {
+            restoredSize += resourceRepository.sumConfirmedSizeTrashedInFolders(chunk, deletedAt);
+        }
+        Long quota = user.getStorageQuota();
+        if (quota != null && user.getStorageUsed() + restoredSize > quota) {
+            throw new RuntimeException("Not enough storage to restore this folder. Required: " +
+                storageQuotaService.formatBytes(restoredSize) + ", Available: " +
+                storageQuotaService.formatBytes(user.getRemainingStorage()));
+        }
+
+        // Flip the loaded entity too, otherwise its stale flag would be written back at flush
+        folder.restoreFromTrash();
+        if (parentTrashed) {
+            folder = folderService.reparentSubtree(folder, null);
+        } else {
+            folderRepository.save(folder);
+        }
+        int restoredFiles = 0;
+        for (List<Long> chunk : chunks) {
+            restoredFiles += resourceRepository.restoreFolderContentsFromTrash(chunk, deletedAt);
+            folderRepository.restoreFromTrash(chunk, deletedAt);
+        }
+
+        if (restoredSize > 0) {
+            userRepository.adjustStorageUsed(user.getId(), restoredSize);
+            user.setStorageUsed(user.getStorageUsed() + restoredSize);
+        }
+        storageQuotaService.invalidateStorageCache(user.getId());
+        folderTreeCache.evict(user.getId());
+
+        log.info("Restored folder {} with {} files from trash by user: {}", folderId, restoredFiles, user.getUsername());
+        return folder;
+    }
+
+    // Entities are mapped here, inside the transaction; the response never carries uploader/owner rows or object keys
+    @Transactional(readOnly = true)
+    public Map<String, Object> listTrash(User user, int page, int size) {
+        Page<Resource> files = resourceRepository.findDeletedFilesByUser(user, PageRequest.of(page, size));
+        List<Folder> folders = page == 0 ? folderRepository.findDeletedFoldersByOwner(user) : List.of();
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("files", files.getContent().stream().map(this::trashedFileToMap).toList());
+        result.put("folders", folders.stream().map(this::trashedFolderToMap).toList());
+        result.put("currentPage", files.getNumber());
+        result.put("totalPages", files.getTotalPages());
+        result.put("totalItems", files.getTotalElements());
+        result.put("retentionDays", retentionDays);
+        return result;
+    }
+
+    private Map<String, Object> trashedFileToMap(Resource resource) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", resource.getId());
+        map.put("fileName", resource.getFileName());
+        map.put("originalName", resource.getOriginalName());
+        map.put("fileSize", resource.getFileSize());
+        map.put("contentType", resource.getContentType());
+        map.put("uploadedAt", resource.getUploadedAt());
+        map.put("deletedAt", resource.getDeletedAt());
+        return map;
+    }
+
+    private Map<String, Object> trashedFolderToMap(Folder folder) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", folder.getId());
+        map.put("name", folder.getFolderName());
+        map.put("createdAt", folder.getCreatedAt());
+        map.put("deletedAt", folder.getDeletedAt());
+        if (folder.getParentFolder() != null) {
+            map.put("parentId", folder.getParentFolder().getId());
+        }
+        return map;
+    }
+
+    // Permanently removes trashed files now instead of waiting for the retention purge
+    public int purgeFiles(List<Long> fileIds, User user) {
+        Integer purged = transactionTemplate.execute(status ->
+            purge(resourceRepository.findDeletedByIdsAndUploader(fileIds, user)));
+        log.info("Purged {} files from trash by user: {}", purged, user.getUsername());
+        return purged;
+    }
+
+    // Walks the user's trash by id, one bounded batch at a time; only ids are read to find the batches
+    public int emptyTrash(User user) {
+        int purged = 0;
+        long afterId = 0;
+        List<Long> batch;
+        while (!(batch = resourceRepository.findTrashedIdsByUploaderAfter(user, afterId, PageRequest.of(0, purgeBatchSize))).isEmpty()) {
+            purged += purgeFiles(batch, user);
+            afterId = batch.get(batch.size() - 1);
+        }
+        return purged;
+    }
+
+    @Scheduled(fixedDelayString = "${trash.purge-interval-ms:3600000}",
+               initialDelayString = "${trash.purge-initial-delay-ms:300000}")
+    public void purgeExpiredTrash() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int purged = 0;
+
+        // Each batch removes its rows, so the next query starts after them; capped per run
+        for (int batch = 0; batch < purgeMaxBatchesPerRun; batch++) {
+            Integer count = transactionTemplate.execute(status ->
+                purge(resourceRepository.findTrashedBefore(cutoff, PageRequest.of(0, purgeBatchSize))));
+            purged += count;
+            if (count < purgeBatchSize) {
+                break;
+            }
+        }
+
+        // Folders go after their files; remaining children are detached so the FK never blocks the delete
+        List<Long> folderIds = folderRepository.findTrashedIdsBefore(cutoff, PageRequest.of(0, purgeBatchSize));
+        if (!folderIds.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Object[]> survivors = folderRepository.findChildRowsOutside(folderIds);
+                folderRepository.detachChildren(folderIds);
+                rerootDetachedChildren(survivors);
+                resourceRepository.detachFromFolders(folderIds);
+                folderRepository.deleteAllByIdInBatch(folderIds);
+            });
+        }
+
+        if (purged > 0 || !folderIds.isEmpty()) {
+            log.info("Trash purge: removed {} files and {} folders deleted before {}", purged, folderIds.size(), cutoff);
+        }
+    }
+
+    /**
+     * Detached children become roots, so their subtree paths drop the purged ancestors. Shallowest
+     * first: re-rooting a child also rewrites any survivor below it, whose old prefix is then
+     * derived by replaying the earlier rewrites. Caller provides the transaction.
+     */
+    private void rerootDetachedChildren(List<Object[]> children) {
+        List<Object[]> ordered = new ArrayList<>(children);
+        ordered.sort(Comparator.comparingInt(row -> row[1] != null ? ((String) row[1]).length() : 0));
+        Map<String, String> rewrites = new LinkedHashMap<>();
+        Set<Long> owners = new HashSet<>();
+
+        for (Object[] row : ordered) {
+            Long id = (Long) row[0];
+            String path = (String) row[1];
+            owners.add((Long) row[2]);
+            if (path == null) {
+                // Not backfilled yet; the backfill derives it from the (now null) parent
+                continue;
+            }
+            for (Map.Entry<String, String> rewrite : rewrites.entrySet()) {
+                if (path.startsWith(rewrite.getKey())) {
+                    path = rewrite.getValue() + path.substring(rewrite.getKey().length());
+                }
+            }
+            String rootPath = "/" + id + "/";
+            folderRepository.rewritePathPrefix(path, rootPath, path.length() + 1);
+            rewrites.put(path, rootPath);
+        }
+
+        owners.forEach(folderTreeCache::evict);
+    }
+
+    // Caller provides the transaction; storage was already released when the files were trashed
+    private int purge(List<Resource> resources) {
+        if (resources.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = resources.stream().map(Resource::getId).toList();
+        resourceRepository.deleteAllByIdInBatch(ids);
+        fileNameIndexService.remove(ids);
+        objectDeletionOutbox.enqueue(resources.stream().map(Resource::getFilePath).toList());
+        return resources.size();
+    }
+}
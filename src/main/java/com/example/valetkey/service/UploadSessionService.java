@@ -0,0 +1,207 @@
+package com.example.valetkey.service;
+
+import com.example.valetkey.model.Resource;
+import com.example.valetkey.model.UploadSession;
+import com.example.valetkey.model.User;
+import com.example.valetkey.repository.ResourceRepository;
+import com.example.valetkey.repository.UploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.Part;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Service
+public class UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private ResourceRepository resourceRepository;
+
+    @Autowired
+    private AWSS3Service awsS3Service;
+
+    @Autowired
+    private FileNameIndexService fileNameIndexService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectDeletionOutbox objectDeletionOutbox;
+
+    @Value("${upload.session.stale-after-hours:24}")
+    private long staleAfterHours;
+
+    @Value("${upload.session.sweep-batch-size:200}")
+    private int sweepBatchSize;
+
+    @Transactional
+    public UploadSession createSession(Resource resource) {
+        UploadSession session = new UploadSession(
+            resource.getId(),
+            resource.getUploader().getId(),
+            resource.getFilePath(),
+            resource.getMultipartUploadId(),
+            resource.getMultipartPartSize(),
+            resource.getMultipartPartCount());
+        return uploadSessionRepository.save(session);
+    }
+
+    @Transactional
+    public UploadSession recordCompletedParts(Long fileId, Map<Integer, String> parts, User user) {
+        UploadSession session = getActiveSession(fileId, user);
+
+        for (Map.Entry<Integer, String> part : parts.entrySet()) {
+            Integer partNumber = part.getKey();
+            if (partNumber == null || partNumber < 1 || partNumber > session.getPartCount()) {
+                throw new RuntimeException("Invalid part number: " + partNumber);
+            }
+            if (part.getValue() == null || part.getValue().isEmpty()) {
+                throw new RuntimeException("ETag is required for part " + partNumber);
+            }
+            session.getCompletedParts().put(partNumber, part.getValue());
+        }
+        session.touch();
+        return uploadSessionRepository.save(session);
+    }
+
+    /**
+     * Reports upload progress. With reconcile=true the recorded parts are first refreshed from
+     * S3 ListParts, which recovers parts that were uploaded but never reported by the client.
+     */
+    @Transactional
+    public Map<String, Object> getProgress(Long fileId, boolean reconcile, User user) {
+        UploadSession session = getActiveSession(fileId, user);
+
+        if (reconcile) {
+            for (Part part : awsS3Service.listParts(session.getObjectKey(), session.getUploadId())) {
+                session.getCompletedParts().put(part.partNumber(), part.eTag());
+            }
+            session.touch();
+            uploadSessionRepository.save(session);
+        }
+
+        List<Integer> missingParts = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= session.getPartCount(); partNumber++) {
+            if (!session.getCompletedParts().containsKey(partNumber)) {
+                missingParts.add(partNumber);
+            }
+        }
+
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("fileId", fileId);
+        progress.put("uploadId", session.getUploadId());
+        progress.put("partSize", session.getPartSize());
+        progress.put("partCount", session.getPartCount());
+        progress.put("completedParts", new TreeSet<>(session.getCompletedParts().keySet()));
+        progress.put("missingParts", missingParts);
+        progress.put("lastActivityAt", session.getLastActivityAt());
+        return progress;
+    }
+
+    /**
+     * Parts to pass to CompleteMultipartUpload. Uses the recorded ETags when every part was
+     * reported, otherwise falls back to S3 ListParts.
+     */
+    @Transactional(readOnly = true)
+    public List<CompletedPart> resolveCompletedParts(Resource resource) {
+        Optional<UploadSession> session = uploadSessionRepository.findByResourceId(resource.getId());
+        if (session.isPresent() && session.get().isActive() && session.get().isAllPartsRecorded()) {
+            return session.get().getCompletedParts().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> CompletedPart.builder().partNumber(e.getKey()).eTag(e.getValue()).build())
+                .toList();
+        }
+
+        return awsS3Service.listParts(resource.getFilePath(), resource.getMultipartUploadId()).stream()
+            .sorted(Comparator.comparing(Part::partNumber))
+            .map(part -> CompletedPart.builder().partNumber(part.partNumber()).eTag(part.eTag()).build())
+            .toList();
+    }
+
+    @Transactional
+    public void markFinished(Long resourceId, String status) {
+        uploadSessionRepository.findByResourceId(resourceId).ifPresent(session -> {
+            session.setStatus(status);
+            session.touch();
+            uploadSessionRepository.save(session);
+        });
+    }
+
+    // Aborts multipart uploads with no activity for upload.session.stale-after-hours and drops their PENDING rows
+    @Scheduled(fixedDelayString = "${upload.session.sweep-interval-ms:900000}",
+               initialDelayString = "${upload.session.sweep-initial-delay-ms:60000}")
+    public void sweepAbandonedUploads() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(staleAfterHours);
+        int abortedSessions = 0;
+        int removedRows = 0;
+
+        // One batch of each kind per run keeps a failing S3/DB call from spinning the sweeper
+        for (UploadSession session : uploadSessionRepository.findStaleActiveSessions(cutoff, PageRequest.of(0, sweepBatchSize))) {
+            try {
+                awsS3Service.abortMultipartUpload(session.getObjectKey(), session.getUploadId());
+                transactionTemplate.executeWithoutResult(status -> {
+                    resourceRepository.findById(session.getResourceId())
+                        .filter(resource -> "PENDING".equals(resource.getUploadStatus()))
+                        .ifPresent(resource -> {
+                            resourceRepository.delete(resource);
+                            fileNameIndexService.remove(List.of(resource.getId()));
+                        });
+                    session.setStatus("ABORTED");
+                    uploadSessionRepository.save(session);
+                });
+                abortedSessions++;
+            } catch (Exception e) {
+                log.warn("Failed to sweep stale multipart upload {}: {}", session.getUploadId(), e.getMessage());
+            }
+        }
+
+        List<Resource> stalePending = resourceRepository.findStalePendingUploads(cutoff, PageRequest.of(0, sweepBatchSize));
+        if (!stalePending.isEmpty()) {
+            List<Long> ids = stalePending.stream().map(Resource::getId).toList();
+            // The client may have PUT the object without confirming; the outbox deletes it (idempotently)
+            // once the rows are gone, and retries on failure instead of orphaning it
+            List<String> objectKeys = stalePending.stream().map(Resource::getFilePath).toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                objectDeletionOutbox.enqueue(objectKeys);
+                resourceRepository.deleteAllByIdInBatch(ids);
+                fileNameIndexService.remove(ids);
+            });
+            removedRows = ids.size();
+        }
+
+        if (abortedSessions > 0 || removedRows > 0) {
+            log.info("Upload sweep: aborted {} stale multipart sessions, removed {} unconfirmed uploads",
+                abortedSessions, removedRows);
+        }
+    }
+
+    private UploadSession getActiveSession(Long fileId, User user) {
+        UploadSession session = uploadSessionRepository.findByResourceId(fileId)
+            .orElseThrow(() -> new RuntimeException("Upload session not found"));
+
+        if (!session.getUploaderId().equals(user.getId())) {
+            throw new RuntimeException("Access denied");
+        }
+
+        if (!session.isActive()) {
+            throw new RuntimeException("Upload session is no longer active");
+        }
+
+        return session;
+    }
+}
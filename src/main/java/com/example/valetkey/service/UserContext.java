@@ -0,0 +1,112 @@
+package com.example.valetkey.service;
+
+import com.example.valetkey.model.User;
+import com.example.valetkey.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the current user for API handlers without a primary-key SELECT on every call.
+ * Users are loaded at most once per {@code user-context.ttl-seconds} and at most once per request;
+ * each request gets its own copy, so handlers can mutate it without touching the cached snapshot.
+ * Quota, permission and storage changes evict the user (again after commit, so a concurrent
+ * request cannot re-cache the pre-commit row).
+ */
+@Service
+public class UserContext {
+
+    private static final Logger log = LoggerFactory.getLogger(UserContext.class);
+
+    private static final String REQUEST_ATTRIBUTE = UserContext.class.getName() + ".user";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${user-context.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${user-context.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<Long, CachedUser> cache = new ConcurrentHashMap<>();
+
+    private record CachedUser(User user, long expiresAtMillis) {
+    }
+
+    public User getUser(Long userId) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User current
+                && current.getId().equals(userId)) {
+            return current;
+        }
+
+        User user = copy(load(userId));
+        if (request != null) {
+            request.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    public void evict(Long userId) {
+        cache.remove(userId);
+        afterCommit(() -> cache.remove(userId));
+    }
+
+    public void evictAll() {
+        cache.clear();
+        afterCommit(cache::clear);
+    }
+
+    private User load(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedUser cached = cache.get(userId);
+        if (cached != null && cached.expiresAtMillis() > now) {
+            return cached.user();
+        }
+
+        User user = userRepository.getUserById(userId);
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
+        if (cache.size() >= maxEntries) {
+            cache.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            if (cache.size() >= maxEntries) {
+                log.debug("User context cache full ({} entries), clearing", cache.size());
+                cache.clear();
+            }
+        }
+        User snapshot = copy(user);
+        cache.put(userId, new CachedUser(snapshot, now + ttlSeconds * 1000));
+        return snapshot;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    // Detached copy: never shared between requests and never flushed by a persistence context
+    private static User copy(User user) {
+        User copy = new User(user.getId(), user.getUsername(), user.getPassword(), user.isCreate(), user.isWrite(),
+            user.isRead(), user.getCreatedAt(), user.getRole(), user.getStorageQuota(), user.getStorageUsed());
+        copy.setEmail(user.getEmail());
+        return copy;
+    }
+}
@@ -23,6 +23,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserContext userContext;
+
 
     public void createDemoUsers() {
         if (userRepository.findUserByUsername("demo").isEmpty()) {
@@ -98,7 +101,9 @@ public class UserService {
         }
 
         user.setStorageQuota(newQuotaBytes);
-        return userRepository.save(user);
+        user = userRepository.save(user);
+        userContext.evict(userId);
+        return user;
     }
 
     @Transactional
@@ -116,6 +121,7 @@ public class UserService {
 
         users.forEach(user -> user.setStorageQuota(newQuotaBytes));
         userRepository.saveAll(users);
+        userContext.evictAll();
         return users.size();
     }
 
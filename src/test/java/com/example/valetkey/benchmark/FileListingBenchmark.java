@@ -0,0 +1,100 @@
+package com.example.valetkey.benchmark;
+
+import com.example.valetkey.model.FileSummary;
+import com.example.valetkey.model.Folder;
+import com.example.valetkey.model.Resource;
+import com.example.valetkey.model.User;
+import com.example.valetkey.repository.ResourceRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One 1,000-row root listing page: the Resource entity query the listing used before, against the
+ * FileSummary projection that replaced it. Both run through Hibernate on the real mappings, each in
+ * its own session as a request would. Run with -prof gc; gc.alloc.rate.norm is the heap cost per page.
+ *
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark="FileListingBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileListingBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private static final String LISTING_WHERE =
+        "WHERE r.uploader = :uploader AND r.folder IS NULL AND r.isDeleted = false ORDER BY r.uploadedAt DESC";
+
+    @Param({"10000"})
+    public int rows;
+
+    private SessionFactory sessionFactory;
+    private User owner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = new Configuration()
+            .addAnnotatedClass(User.class)
+            .addAnnotatedClass(Folder.class)
+            .addAnnotatedClass(Resource.class)
+            .setProperty(AvailableSettings.JAKARTA_JDBC_URL, System.getProperty(
+                "benchmark.jdbc.url", "jdbc:h2:mem:file-listing;MODE=MySQL;DB_CLOSE_DELAY=-1"))
+            .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .buildSessionFactory();
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.getTransaction().begin();
+            owner = new User("listing-owner", "secret-hash");
+            session.insert(owner);
+            LocalDateTime start = LocalDateTime.now().minusYears(1);
+            for (int i = 0; i < rows; i++) {
+                Resource resource = new Resource();
+                resource.setFileName("report " + i + ".pdf");
+                resource.setFilePath("user-" + owner.getId() + "/" + i + "_report " + i + ".pdf");
+                resource.setUploader(owner);
+                resource.setFileSize(1024L * i);
+                resource.setContentType("application/pdf");
+                resource.setUploadStatus("COMPLETED");
+                resource.setUploadedAt(start.plusMinutes(i));
+                session.insert(resource);
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public List<Resource> entityPage() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("SELECT r FROM Resource r " + LISTING_WHERE, Resource.class)
+                .setParameter("uploader", owner)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+        }
+    }
+
+    @Benchmark
+    public List<FileSummary> summaryPage() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(ResourceRepository.FILE_SUMMARY + LISTING_WHERE, FileSummary.class)
+                .setParameter("uploader", owner)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+        }
+    }
+}
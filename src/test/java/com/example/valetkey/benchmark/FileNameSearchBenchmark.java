@@ -0,0 +1,168 @@
+package com.example.valetkey.benchmark;
+
+import com.example.valetkey.model.FileSummary;
+import com.example.valetkey.model.NameNormalizer;
+import com.example.valetkey.model.User;
+import com.example.valetkey.repository.ResourceRepository;
+import com.example.valetkey.service.FileNameIndexService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * File name search over synthetic resources/file_name_tokens rows: FileNameIndexService.search
+ * against the LOWER(file_name) LIKE '%q%' page + count it replaced. Rows are spread over USERS
+ * uploaders and one uploader's slice is searched, as a request would.
+ *
+ * Defaults to in-memory H2; the 10M-row run needs a disk-backed database, which is seeded once and
+ * reused by later runs with the same row count:
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark="FileNameSearchBenchmark -p rows=10000000
+ *     -jvmArgsAppend -Dbenchmark.jdbc.url=jdbc:h2:file:/tmp/valet-search;MODE=MySQL"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileNameSearchBenchmark {
+
+    private static final int USERS = 10;
+    private static final int SEED_BATCH = 10_000;
+    private static final int PAGE_SIZE = 20;
+
+    private static final String[] WORDS = {
+        "invoice", "report", "budget", "contract", "photo", "scan", "draft", "final", "meeting", "notes",
+        "quarterly", "summary", "receipt", "project", "design", "backup", "export", "holiday", "review", "plan"};
+    private static final String[] EXTENSIONS = {"pdf", "docx", "xlsx", "jpg", "png", "txt", "zip"};
+
+    // The replaced query, as SQL: an unordered page plus its count over the uploader's live rows
+    private static final String LIKE_WHERE =
+        " FROM resources r WHERE r.uploader_id = ? AND r.is_deleted = false " +
+        "AND LOWER(r.file_name) LIKE LOWER(CONCAT('%', ?, '%'))";
+
+    private static final String SUMMARY_SQL =
+        "SELECT id, file_name, original_name, file_size, content_type, uploaded_at, last_modified, is_public " +
+        "FROM resources WHERE id IN (:ids)";
+
+    @Param({"100000"})
+    public int rows;
+
+    // Common word, word + year, and a version suffix matching a handful of rows
+    @Param({"report", "budget 2021", "v1234"})
+    public String query;
+
+    private JdbcTemplate jdbcTemplate;
+    private FileNameIndexService fileNameIndexService;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getProperty(
+            "benchmark.jdbc.url", "jdbc:h2:mem:file-search;MODE=MySQL;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        NamedParameterJdbcTemplate namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+
+        // Summaries are read by primary key with plain JDBC so no JPA context is needed
+        ResourceRepository resourceRepository = mock(ResourceRepository.class);
+        when(resourceRepository.findSummariesByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return namedParameterJdbcTemplate.query(SUMMARY_SQL, new MapSqlParameterSource("ids", ids),
+                (rs, rowNum) -> new FileSummary(rs.getLong("id"), rs.getString("file_name"),
+                    rs.getString("original_name"), rs.getLong("file_size"), rs.getString("content_type"),
+                    rs.getTimestamp("uploaded_at").toLocalDateTime(), rs.getTimestamp("last_modified").toLocalDateTime(),
+                    rs.getBoolean("is_public")));
+        });
+
+        fileNameIndexService = new FileNameIndexService();
+        ReflectionTestUtils.setField(fileNameIndexService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(fileNameIndexService, "namedParameterJdbcTemplate", namedParameterJdbcTemplate);
+        ReflectionTestUtils.setField(fileNameIndexService, "resourceRepository", resourceRepository);
+
+        user = new User();
+        user.setId(1L);
+
+        if (!isSeeded()) {
+            createSchema();
+            seed();
+        }
+    }
+
+    @Benchmark
+    public Page<FileSummary> trigramIndex() {
+        return fileNameIndexService.search(user, query, null, null, null, null, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> leadingWildcardLike() {
+        jdbcTemplate.queryForObject("SELECT COUNT(*)" + LIKE_WHERE, Long.class, user.getId(), query);
+        return jdbcTemplate.queryForList("SELECT r.*" + LIKE_WHERE + " LIMIT " + PAGE_SIZE, user.getId(), query);
+    }
+
+    private boolean isSeeded() {
+        try {
+            Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resources", Long.class);
+            return count != null && count == rows;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Column subset of the Resource/FileNameToken mappings, with the same indexes
+    private void createSchema() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS file_name_tokens");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS resources");
+        jdbcTemplate.execute("CREATE TABLE resources (id BIGINT PRIMARY KEY, file_name VARCHAR(255) NOT NULL, " +
+            "original_name VARCHAR(255), uploader_id BIGINT NOT NULL, folder_id BIGINT, uploaded_at TIMESTAMP, " +
+            "file_size BIGINT, content_type VARCHAR(255), is_public BOOLEAN, last_modified TIMESTAMP, " +
+            "is_deleted BOOLEAN, normalized_name VARCHAR(255))");
+        jdbcTemplate.execute("CREATE INDEX idx_resources_uploader_normalized_name ON resources (uploader_id, normalized_name)");
+        jdbcTemplate.execute("CREATE INDEX idx_resources_listing ON resources (uploader_id, folder_id, is_deleted, uploaded_at, id)");
+        jdbcTemplate.execute("CREATE TABLE file_name_tokens (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "resource_id BIGINT NOT NULL, uploader_id BIGINT NOT NULL, token VARCHAR(16) NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_file_name_tokens_lookup ON file_name_tokens (uploader_id, token, resource_id)");
+        jdbcTemplate.execute("CREATE INDEX idx_file_name_tokens_resource ON file_name_tokens (resource_id)");
+    }
+
+    private void seed() {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().minusYears(3);
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+        List<FileNameIndexService.IndexEntry> entries = new ArrayList<>(SEED_BATCH);
+
+        for (long id = 1; id <= rows; id++) {
+            String fileName = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " +
+                (2018 + random.nextInt(8)) + " v" + id + "." + EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            long uploaderId = id % USERS + 1;
+            Timestamp uploadedAt = Timestamp.valueOf(start.plusSeconds(id * 10));
+            batch.add(new Object[] {id, fileName, uploaderId, uploadedAt, (long) random.nextInt(50_000_000),
+                "application/octet-stream", false, uploadedAt, false, NameNormalizer.normalize(fileName)});
+            entries.add(new FileNameIndexService.IndexEntry(id, uploaderId, fileName));
+
+            if (batch.size() == SEED_BATCH || id == rows) {
+                jdbcTemplate.batchUpdate("INSERT INTO resources (id, file_name, uploader_id, uploaded_at, file_size, " +
+                    "content_type, is_public, last_modified, is_deleted, normalized_name) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    batch);
+                fileNameIndexService.index(entries);
+                batch.clear();
+                entries.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.valetkey.repository;
+
+import com.example.valetkey.model.FileSummary;
+import com.example.valetkey.model.Folder;
+import com.example.valetkey.model.Resource;
+import com.example.valetkey.model.User;
+import com.example.valetkey.service.FileNameIndexService;
+import com.example.valetkey.service.FolderService;
+import com.example.valetkey.service.FolderTreeCache;
+import com.example.valetkey.service.ObjectDeletionOutbox;
+import com.example.valetkey.service.StorageQuotaService;
+import com.example.valetkey.service.TrashService;
+import com.example.valetkey.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement counts for the entity-loading paths now that Resource/Folder associations are lazy,
+ * and a check that the trash listing serializes without touching entity graphs.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(TrashService.class)
+class FetchPlanTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ResourceRepository resourceRepository;
+
+    @Autowired
+    private TrashService trashService;
+
+    // Required by ValetKeyApplication's demo-user bootstrap
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private FolderService folderService;
+
+    @MockBean
+    private FolderTreeCache folderTreeCache;
+
+    @MockBean
+    private StorageQuotaService storageQuotaService;
+
+    @MockBean
+    private ObjectDeletionOutbox objectDeletionOutbox;
+
+    @MockBean
+    private FileNameIndexService fileNameIndexService;
+
+    private Statistics statistics;
+
+    private User owner;
+    private Folder parent;
+    private Folder child;
+    private Resource publicFile;
+    private Resource nestedFile;
+    private Resource trashedFile;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(new User("fetch-plan-owner", "secret-hash"));
+        parent = entityManager.persist(new Folder("parent", null, owner));
+        child = entityManager.persist(new Folder("child", parent, owner));
+
+        publicFile = entityManager.persist(file("public.txt", null));
+        publicFile.setPublic(true);
+        publicFile.setPublicLinkToken("public-token");
+        nestedFile = entityManager.persist(file("nested.txt", child));
+        trashedFile = entityManager.persist(file("trashed.txt", child));
+        trashedFile.moveToTrash();
+        child.moveToTrash();
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+            .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void loadingAFileDoesNotLoadItsFolderChainOrUploader() {
+        Resource loaded = resourceRepository.findById(nestedFile.getId()).orElseThrow();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(Hibernate.isInitialized(loaded.getFolder())).isFalse();
+        assertThat(Hibernate.isInitialized(loaded.getUploader())).isFalse();
+        assertThat(loaded.getUploader().getId()).isEqualTo(owner.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void publicLinkFetchesUploaderInOneStatement() {
+        Resource loaded = resourceRepository.findByPublicLinkToken("public-token").orElseThrow();
+
+        assertThat(Hibernate.isInitialized(loaded.getUploader())).isTrue();
+        assertThat(loaded.getUploader().getUsername()).isEqualTo("fetch-plan-owner");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void bulkLookupIsOneStatementRegardlessOfFolders() {
+        List<Resource> loaded = resourceRepository.findByIdsAndUploader(
+            List.of(publicFile.getId(), nestedFile.getId()), owner);
+
+        assertThat(loaded).hasSize(2);
+        loaded.forEach(r -> {
+            r.getFilePath();
+            r.getFileSize();
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void trashRestoreLookupFetchesFoldersInOneStatement() {
+        List<Resource> loaded = resourceRepository.findDeletedByIdsAndUploader(List.of(trashedFile.getId()), owner);
+
+        assertThat(loaded).hasSize(1);
+        assertThat(loaded.get(0).getFolder().isDeleted()).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void listingProjectionLoadsNoEntities() {
+        Page<FileSummary> page = resourceRepository.findSummariesByUploaderAndFolderNullable(
+            owner, null, PageRequest.of(0, 20));
+
+        assertThat(page.getContent()).extracting(FileSummary::fileName).containsExactly("public.txt");
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void trashListingSerializesWithoutEntityGraphs() throws Exception {
+        Map<String, Object> listing = trashService.listTrash(owner, 0, 20);
+
+        String json = new ObjectMapper().registerModule(new JavaTimeModule()).writeValueAsString(listing);
+
+        assertThat(json).contains("trashed.txt").contains("\"name\":\"child\"");
+        assertThat(json).doesNotContain("secret-hash").doesNotContain("user-").doesNotContain("uploader");
+        // Trashed files page (count skipped on a short first page) and trashed folders; no association loads
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private Resource file(String name, Folder folder) {
+        Resource resource = new Resource();
+        resource.setFileName(name);
+        resource.setFilePath("user-" + owner.getId() + "/" + name);
+        resource.setUploader(owner);
+        resource.setFolder(folder);
+        resource.setFileSize(10L);
+        resource.setUploadedAt(LocalDateTime.now());
+        return resource;
+    }
+}
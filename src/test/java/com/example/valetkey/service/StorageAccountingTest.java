@@ -0,0 +1,130 @@
+package com.example.valetkey.service;
+
+import com.example.valetkey.model.User;
+import com.example.valetkey.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * storage_used holds confirmed bytes only: reading storage info while an upload is pending must not
+ * fold the pending row in, or the confirm that follows adds it a second time.
+ */
+@DataJpaTest
+@Import({FileService.class, StorageQuotaService.class})
+class StorageAccountingTest {
+
+    private static final long FILE_SIZE = 4096L;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FileService fileService;
+
+    @MockBean
+    private AWSS3Service awsS3Service;
+
+    @MockBean
+    private SQSService sqsService;
+
+    @MockBean
+    private BackupService backupService;
+
+    @MockBean
+    private CloudWatchMetricsService cloudWatchMetricsService;
+
+    @MockBean
+    private UploadSessionService uploadSessionService;
+
+    @MockBean
+    private BulkZipWriter bulkZipWriter;
+
+    @MockBean
+    private TempDownloadService tempDownloadService;
+
+    @MockBean
+    private TrashService trashService;
+
+    @MockBean
+    private FileNameIndexService fileNameIndexService;
+
+    @MockBean
+    private ObjectDeletionOutbox objectDeletionOutbox;
+
+    @MockBean
+    private UserContext userContext;
+
+    // Required by ValetKeyApplication's demo-user bootstrap
+    @MockBean
+    private UserService userService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persist(new User("storage-owner", "secret-hash"));
+        entityManager.flush();
+        // Callers get a detached user from UserContext, never the managed row
+        entityManager.clear();
+
+        when(awsS3Service.generatePresignedUploadUrl(anyString(), anyInt(), any(User.class)))
+            .thenReturn("https://example.invalid/upload");
+        when(awsS3Service.objectExists(anyString())).thenReturn(true);
+        when(awsS3Service.objectsExist(any())).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            return keys.stream().collect(Collectors.toMap(Function.identity(), key -> true));
+        });
+    }
+
+    @Test
+    void storageInfoBeforeBatchConfirmDoesNotDoubleCount() {
+        Map<String, Object> urls = fileService.generateUploadUrls(
+            List.of(Map.<String, Object>of("fileName", "report.pdf", "fileSize", FILE_SIZE)), null, user);
+        @SuppressWarnings("unchecked")
+        Long fileId = (Long) ((List<Map<String, Object>>) urls.get("uploads")).get(0).get("fileId");
+
+        assertThat(fileService.getUserStorageInfo(user).get("storageUsed")).isEqualTo(0L);
+
+        fileService.confirmUploads(Map.of(fileId, "application/pdf"), user);
+
+        assertThat(persistedStorageUsed()).isEqualTo(FILE_SIZE);
+        assertThat(fileService.getUserStorageInfo(user).get("storageUsed")).isEqualTo(FILE_SIZE);
+    }
+
+    @Test
+    void storageInfoBeforeSingleConfirmDoesNotDoubleCount() {
+        Long fileId = (Long) fileService.generateUploadUrl("report.pdf", FILE_SIZE, null, user).get("fileId");
+
+        assertThat(fileService.getUserStorageInfo(user).get("storageUsed")).isEqualTo(0L);
+
+        fileService.confirmUpload(fileId, "application/pdf", user);
+
+        assertThat(persistedStorageUsed()).isEqualTo(FILE_SIZE);
+    }
+
+    private Long persistedStorageUsed() {
+        entityManager.flush();
+        entityManager.clear();
+        return userRepository.findById(user.getId()).orElseThrow().getStorageUsed();
+    }
+}